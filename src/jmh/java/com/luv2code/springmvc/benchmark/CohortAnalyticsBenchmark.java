@@ -0,0 +1,77 @@
+package com.luv2code.springmvc.benchmark;
+
+import com.luv2code.springmvc.MvcTestingExampleApplication;
+import com.luv2code.springmvc.models.CohortStatistics;
+import com.luv2code.springmvc.service.CohortAnalyticsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Scaling of the cohort statistics with the ForkJoinPool parallelism. The grade scan is a single serial cursor,
+ * so it bounds the speedup; the chunk summaries and the per-student merge run on the pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CohortAnalyticsBenchmark {
+
+    private static final String[] GRADE_TYPES = {"math", "science", "history"};
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"10000"})
+    private int students;
+
+    @Param({"20"})
+    private int gradesPerStudent;
+
+    private ConfigurableApplicationContext context;
+
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    private ForkJoinPool forkJoinPool;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(MvcTestingExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false",
+                        "spring.datasource.url=jdbc:h2:mem:cohort" + students,
+                        "logging.level.root=warn")
+                .run();
+        cohortAnalyticsService = context.getBean(CohortAnalyticsService.class);
+        forkJoinPool = new ForkJoinPool(parallelism);
+
+        List<Object[]> rows = new ArrayList<>(students * gradesPerStudent);
+        for (int i = 1; i <= students; i++) {
+            for (int g = 0; g < gradesPerStudent; g++) {
+                rows.add(new Object[]{i, GRADE_TYPES[g % GRADE_TYPES.length], ThreadLocalRandom.current().nextInt(10001) / 100.0});
+            }
+        }
+        context.getBean(JdbcTemplate.class).batchUpdate("insert into grade(student_id, subject, grade) values (?, ?, ?)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        forkJoinPool.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public CohortStatistics getCohortStatistics() {
+        return cohortAnalyticsService.getCohortStatistics(10, forkJoinPool);
+    }
+}
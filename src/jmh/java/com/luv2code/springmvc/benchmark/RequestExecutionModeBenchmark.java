@@ -0,0 +1,110 @@
+package com.luv2code.springmvc.benchmark;
+
+import com.luv2code.springmvc.MvcTestingExampleApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Load test of the grade-write and report-card endpoints over HTTP, with the same small Tomcat pool in both
+ * modes: 256 client threads keep far more requests in flight than there are platform request threads.
+ * The embedded H2 database answers in microseconds, which understates how long requests block on JDBC;
+ * for representative numbers point it at MySQL, e.g. -p profiles=mysql.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(256)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestExecutionModeBenchmark {
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"32"})
+    private int tomcatThreads;
+
+    @Param({"1000"})
+    private int students;
+
+    @Param({""})
+    private String profiles;
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient httpClient;
+
+    private String baseUrl;
+
+    private int firstStudentId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(MvcTestingExampleApplication.class)
+                .profiles(profiles.isEmpty() ? new String[0] : profiles.split(","))
+                .properties("server.port=0",
+                        "server.tomcat.threads.max=" + tomcatThreads,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.jpa.show-sql=false",
+                        "spring.datasource.url=jdbc:h2:mem:load" + virtualThreads,
+                        "logging.level.root=warn")
+                .run();
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + port + "/api/students/";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> rows = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            rows.add(new Object[]{"Student", "Number" + i, "load" + i + "@luv2code_school.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into student(first_name, last_name, email_address) values (?, ?, ?)", rows);
+        firstStudentId = jdbcTemplate.queryForObject("select min(id) from student", Integer.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public int createGrade() throws IOException, InterruptedException {
+        double grade = ThreadLocalRandom.current().nextInt(10001) / 100.0;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + randomStudentId() + "/grades"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"gradeType\":\"math\",\"grade\":" + grade + "}"))
+                .build();
+        return send(request, 201);
+    }
+
+    @Benchmark
+    public int reportCard() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + randomStudentId())).GET().build(), 200);
+    }
+
+    private int randomStudentId() {
+        return firstStudentId + ThreadLocalRandom.current().nextInt(students);
+    }
+
+    private int send(HttpRequest request, int expectedStatus) throws IOException, InterruptedException {
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(request.method() + " " + request.uri() + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,118 @@
+package com.luv2code.springmvc.benchmark;
+
+import com.luv2code.springmvc.MvcTestingExampleApplication;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Cold start of a scale-out instance: each invocation launches a new JVM with the application and measures until
+ * GET /api/students first answers 200, so JVM boot, context refresh and whatever lazy initialization the first
+ * request triggers are all included. By default the application runs from this benchmark's classpath; AppCDS needs
+ * an archive trained on the same jars, e.g. after mvn -Pappcds,aot package:
+ *   -p application=target/appcds/spring-boot-mvc-testing-demo-1.0.0.jar
+ *   -p jvmArgs="-XX:SharedArchiveFile=target/appcds/application.jsa -Dspring.aot.enabled=true"
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    @Param({"", "fast-startup"})
+    private String profiles;
+
+    // space-separated JVM options for the launched application
+    @Param({""})
+    private String jvmArgs;
+
+    // an executable war or jar; empty runs the main class from this classpath
+    @Param({""})
+    private String application;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private Process process;
+
+    @TearDown(Level.Iteration)
+    public void stopApplication() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            process = null;
+        }
+    }
+
+    @Benchmark
+    public int timeToFirstRequest() throws IOException, InterruptedException {
+        int port = freePort();
+        process = new ProcessBuilder(command(port))
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/students")).GET().build();
+        long deadline = System.nanoTime() + START_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + " before answering");
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Application did not answer within " + START_TIMEOUT);
+    }
+
+    private List<String> command(int port) {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String arg : jvmArgs.trim().split("\\s+")) {
+            if (!arg.isEmpty()) {
+                command.add(arg);
+            }
+        }
+        if (application.isEmpty()) {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(MvcTestingExampleApplication.class.getName());
+        } else {
+            command.add("-jar");
+            command.add(application);
+        }
+        command.add("--server.port=" + port);
+        command.add("--logging.level.root=warn");
+        if (!profiles.isEmpty()) {
+            command.add("--spring.profiles.active=" + profiles);
+        }
+        return command;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
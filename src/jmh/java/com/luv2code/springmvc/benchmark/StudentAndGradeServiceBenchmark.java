@@ -0,0 +1,126 @@
+package com.luv2code.springmvc.benchmark;
+
+import com.luv2code.springmvc.MvcTestingExampleApplication;
+import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.GradebookPage;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Runs the service against the embedded H2 database seeded with a realistic roster: every student gets
+ * five grades per subject before measurement starts. With cache=none the cached reads (getGradeBookPage)
+ * measure the database query rather than a cache lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentAndGradeServiceBenchmark {
+
+    private static final String[] GRADE_TYPES = {"math", "science", "history"};
+
+    @Param({"1000", "100000"})
+    private int students;
+
+    // spring.cache.type: "none" bypasses the caches, empty keeps the application's Caffeine caches
+    @Param({"none", ""})
+    private String cache;
+
+    private ConfigurableApplicationContext context;
+
+    private StudentAndGradeService studentAndGradeService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private int firstStudentId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(MvcTestingExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.jpa.show-sql=false",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark" + students,
+                        "spring.cache.type=" + cache,
+                        "logging.level.root=warn")
+                .run();
+        studentAndGradeService = context.getBean(StudentAndGradeService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> rows = new ArrayList<>(students);
+        for (int i = 0; i < students; i++) {
+            rows.add(new Object[]{"Student", "Number" + i, "student" + i + "@luv2code_school.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into student(first_name, last_name, email_address) values (?, ?, ?)", rows);
+        firstStudentId = jdbcTemplate.queryForObject("select min(id) from student", Integer.class);
+
+        List<GradeSubmission> grades = new ArrayList<>(students * 15);
+        for (int i = 0; i < students; i++) {
+            for (String gradeType : GRADE_TYPES) {
+                for (int g = 0; g < 5; g++) {
+                    grades.add(new GradeSubmission(firstStudentId + i, gradeType, ThreadLocalRandom.current().nextInt(10001) / 100.0));
+                }
+            }
+        }
+        studentAndGradeService.createGrades(grades);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class GradeToDelete {
+
+        private int gradeId;
+
+        @Setup(Level.Invocation)
+        public void createGrade(StudentAndGradeServiceBenchmark benchmark) {
+            int studentId = benchmark.randomStudentId();
+            benchmark.studentAndGradeService.createGrade(75.5, studentId, "math");
+            gradeId = benchmark.jdbcTemplate.queryForObject(
+                    "select max(id) from grade where student_id = ? and subject = 'math'", Integer.class, studentId);
+        }
+    }
+
+    private int randomStudentId() {
+        return firstStudentId + ThreadLocalRandom.current().nextInt(students);
+    }
+
+    @Benchmark
+    public boolean createGrade() {
+        return studentAndGradeService.createGrade(ThreadLocalRandom.current().nextInt(10001) / 100.0,
+                randomStudentId(), GRADE_TYPES[ThreadLocalRandom.current().nextInt(3)]);
+    }
+
+    @Benchmark
+    public int deleteGrade(GradeToDelete grade) {
+        return studentAndGradeService.deleteGrade(grade.gradeId, "math");
+    }
+
+    @Benchmark
+    public GradebookPage getGradeBookPage() {
+        return studentAndGradeService.getGradeBook(randomStudentId() - 1, StudentAndGradeService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public int getGradeBookFull() {
+        int count = 0;
+        for (CollegeStudent ignored : studentAndGradeService.getGradeBook()) {
+            count++;
+        }
+        return count;
+    }
+}
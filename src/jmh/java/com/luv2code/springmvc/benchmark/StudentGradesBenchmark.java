@@ -0,0 +1,62 @@
+package com.luv2code.springmvc.benchmark;
+
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradeColumn;
+import com.luv2code.springmvc.models.MathGrade;
+import com.luv2code.springmvc.models.StudentGrades;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentGradesBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private StudentGrades studentGrades;
+
+    private List<Grade> grades;
+
+    private GradeColumn column;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        grades = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            grades.add(new MathGrade(Math.round(random.nextDouble() * 10000) / 100.0));
+        }
+        studentGrades = new StudentGrades();
+        studentGrades.setMathGradeResults(grades);
+        column = studentGrades.getMathGradeColumn();
+    }
+
+    @Benchmark
+    public double addGradeResultsForSingleClass() {
+        return studentGrades.addGradeResultsForSingleClass(grades);
+    }
+
+    @Benchmark
+    public double findGradePointAverage() {
+        return studentGrades.findGradePointAverage(grades);
+    }
+
+    @Benchmark
+    public double findGradePointAverageColumn() {
+        return studentGrades.findGradePointAverage(column);
+    }
+
+    @Benchmark
+    public double columnVariance() {
+        return column.variance();
+    }
+}
@@ -0,0 +1,51 @@
+package com.luv2code.springmvc.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    // student id -> GradebookCollegeStudent
+    public static final String REPORT_CARDS = "reportCards";
+
+    // student id -> subject -> GradeAggregate
+    public static final String GRADE_AGGREGATES = "gradeAggregates";
+
+    // "after:size" -> GradebookPage
+    public static final String GRADEBOOK = "gradebook";
+
+    @Bean
+    public CaffeineCacheManager caffeineCacheManager(@Value("${gradebook.cache.max-size:10000}") long maxSize,
+                                                     @Value("${gradebook.cache.ttl:10m}") Duration ttl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(REPORT_CARDS, GRADE_AGGREGATES, GRADEBOOK);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        return cacheManager;
+    }
+
+    // puts and evictions wait for the surrounding transaction to commit, so readers never re-cache uncommitted state.
+    // spring.cache.type=none turns caching off, e.g. to measure the uncached reads
+    @Bean
+    @Primary
+    public CacheManager cacheManager(CaffeineCacheManager caffeineCacheManager,
+                                     @Value("${spring.cache.type:}") String cacheType) {
+        if ("none".equalsIgnoreCase(cacheType)) {
+            return new NoOpCacheManager();
+        }
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,71 @@
+package com.luv2code.springmvc.config;
+
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/*
+ * Times every public service method, tagged with the gradeType argument when there is one, and the JDBC DAO.
+ * Controller endpoints are covered by http.server.requests and the Spring Data DAOs by
+ * spring.data.repository.invocations.
+ */
+@Aspect
+@Component
+public class GradebookMetricsAspect {
+
+    private static final String NONE = "none";
+
+    private static final String OTHER = "other";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.luv2code.springmvc.service..*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("gradebook.service", joinPoint);
+    }
+
+    @Around("execution(public * com.luv2code.springmvc.repository.GradeJdbcDao.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("gradebook.repository", joinPoint);
+    }
+
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = NONE;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(name)
+                    .tag("class", signature.getDeclaringType().getSimpleName())
+                    .tag("method", signature.getName())
+                    .tag("gradeType", gradeType(signature, joinPoint.getArgs()))
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String gradeType(MethodSignature signature, Object[] args) {
+        String[] parameterNames = signature.getParameterNames();
+        if (parameterNames == null) {
+            return NONE;
+        }
+        for (int i = 0; i < parameterNames.length; i++) {
+            if ("gradeType".equals(parameterNames[i])) {
+                // request bodies supply this value, so only known subjects become tags
+                return args[i] != null && StudentAndGradeService.GRADE_TYPES.contains(args[i]) ? (String) args[i] : OTHER;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,57 @@
+package com.luv2code.springmvc.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty("gradebook.datasource.replica.url")
+public class ReplicaDataSourceConfiguration {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // bound by hand so it does not compete with the auto-configured spring.datasource properties bean
+    @Bean
+    public HikariDataSource replicaDataSource(Environment environment) {
+        Binder binder = Binder.get(environment);
+        DataSourceProperties properties = binder.bind("gradebook.datasource.replica", DataSourceProperties.class).get();
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("gradebook-replica");
+        dataSource.setReadOnly(true);
+        binder.bind("gradebook.datasource.replica.hikari", Bindable.ofInstance(dataSource));
+        return dataSource;
+    }
+
+    // the lazy proxy defers fetching a connection until the first statement, by which time the
+    // transaction's read-only flag is set and the routing key can be resolved
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicaRoutingDataSource.PRIMARY, primaryDataSource,
+                ReplicaRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,121 @@
+package com.luv2code.springmvc.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// the hot lookups are only cheap with these indexes, so refuse to start without them
+@Component
+public class SchemaIndexVerifier {
+
+    private static final List<ExpectedIndex> EXPECTED_INDEXES = List.of(
+            new ExpectedIndex("student", List.of("email_address"), true),
+            new ExpectedIndex("grade", List.of("student_id", "subject"), false),
+            new ExpectedIndex("grade_aggregate", List.of("student_id", "subject"), true));
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${gradebook.schema.verify-indexes:true}")
+    private boolean verifyIndexes;
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void verifyOnStartup() {
+        if (verifyIndexes) {
+            verify();
+        }
+    }
+
+    public void verify() {
+        List<String> missing = findMissingIndexes();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Missing database indexes: " + missing
+                    + ". Run the migrations in db/migration or set gradebook.schema.verify-indexes=false");
+        }
+    }
+
+    public List<String> findMissingIndexes() {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> {
+                List<String> missing = new ArrayList<>();
+                for (ExpectedIndex expected : EXPECTED_INDEXES) {
+                    if (!expected.isSatisfiedBy(readIndexes(metaData, expected.table))) {
+                        missing.add(expected.toString());
+                    }
+                }
+                return missing;
+            });
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Could not read index metadata", e);
+        }
+    }
+
+    // index name -> its columns in key order, plus whether it is unique
+    private static Map<String, IndexColumns> readIndexes(DatabaseMetaData metaData, String table) throws SQLException {
+        String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        Map<String, IndexColumns> indexes = new TreeMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, tableName, false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String column = rs.getString("COLUMN_NAME");
+                if (indexName == null || column == null) {
+                    continue;
+                }
+                IndexColumns index = indexes.computeIfAbsent(indexName, name -> new IndexColumns());
+                index.unique = !rs.getBoolean("NON_UNIQUE");
+                index.columns.put(rs.getInt("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+            }
+        }
+        return indexes;
+    }
+
+    private static class IndexColumns {
+        private final Map<Integer, String> columns = new TreeMap<>();
+        private boolean unique;
+    }
+
+    private static class ExpectedIndex {
+        private final String table;
+        private final List<String> columns;
+        private final boolean unique;
+
+        ExpectedIndex(String table, List<String> columns, boolean unique) {
+            this.table = table;
+            this.columns = columns;
+            this.unique = unique;
+        }
+
+        // a lookup index may be a wider composite with matching leading columns; a unique one must match exactly
+        boolean isSatisfiedBy(Map<String, IndexColumns> indexes) {
+            for (IndexColumns index : indexes.values()) {
+                List<String> indexColumns = new ArrayList<>(index.columns.values());
+                boolean matches = unique
+                        ? index.unique && indexColumns.equals(columns)
+                        : indexColumns.size() >= columns.size() && indexColumns.subList(0, columns.size()).equals(columns);
+                if (matches) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return (unique ? "unique " : "") + table + columns;
+        }
+    }
+}
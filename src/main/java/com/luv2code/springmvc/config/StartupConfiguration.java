@@ -0,0 +1,23 @@
+package com.luv2code.springmvc.config;
+
+import com.luv2code.springmvc.service.GpaLeaderboardService;
+import com.luv2code.springmvc.service.GradeWriteBehindService;
+import com.luv2code.springmvc.service.InMemoryStudentAndGradeService;
+import com.luv2code.springmvc.service.StudentExistenceFilter;
+import com.luv2code.springmvc.service.StudentSearchService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfiguration {
+
+    // still created at startup under spring.main.lazy-initialization: a missing index has to stop the start, the
+    // write-behind writer has to run, and the in-memory indexes scan the database before traffic rather than in it
+    @Bean
+    static LazyInitializationExcludeFilter eagerGradebookBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SchemaIndexVerifier.class, GradeWriteBehindService.class,
+                InMemoryStudentAndGradeService.class, GpaLeaderboardService.class, StudentSearchService.class,
+                StudentExistenceFilter.class);
+    }
+}
@@ -1,13 +1,32 @@
 package com.luv2code.springmvc.controller;
 
+import com.luv2code.springmvc.models.CohortStatistics;
 import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradeAggregate;
+import com.luv2code.springmvc.models.GradeIngestResult;
+import com.luv2code.springmvc.models.GradeSubmission;
 import com.luv2code.springmvc.models.Gradebook;
+import com.luv2code.springmvc.models.GradebookCollegeStudent;
+import com.luv2code.springmvc.models.GradebookPage;
+import com.luv2code.springmvc.models.StudentGrades;
+import com.luv2code.springmvc.models.StudentSearchPage;
+import com.luv2code.springmvc.service.CacheStatisticsService;
+import com.luv2code.springmvc.service.CohortAnalyticsService;
+import com.luv2code.springmvc.service.GradeWriteBehindService;
 import com.luv2code.springmvc.service.StudentAndGradeService;
+import com.luv2code.springmvc.service.StudentSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @Controller
 public class GradebookController {
 
@@ -17,37 +36,135 @@ public class GradebookController {
     @Autowired
     private StudentAndGradeService studentAndGradeService;
 
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private StudentSearchService studentSearchService;
+
+    @Autowired(required = false)
+    private GradeWriteBehindService gradeWriteBehindService;
+
 
     @RequestMapping(value = "/", method = RequestMethod.GET)
-    public String getStudents(Model m) {
-        Iterable<CollegeStudent> collegeStudents = studentAndGradeService.getGradeBook();
-        m.addAttribute("students", collegeStudents);
+    public String getStudents(@RequestParam(value = "after", defaultValue = "0") int after,
+                              @RequestParam(value = "size", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int size,
+                              Model m) {
+        addGradebookPage(m, after, size);
+        return "index";
+    }
+
+    @GetMapping("/search")
+    public String searchStudents(@RequestParam("q") String query,
+                                 @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                 @RequestParam(value = "size", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int size,
+                                 Model m) {
+        StudentSearchPage search = studentSearchService.search(query, offset, size);
+        m.addAttribute("students", search.getStudents());
+        m.addAttribute("search", search);
         return "index";
     }
 
     @PostMapping(value = "/")
-    public String createStudent(@ModelAttribute("student") CollegeStudent student, Model m) {
-        studentAndGradeService.createStudent(student.getFirstName(), student.getLastName(), student.getEmailAddress());
-        Iterable<CollegeStudent> collegeStudents = studentAndGradeService.getGradeBook();
-        m.addAttribute("students", collegeStudents);
+    public String createStudent(@ModelAttribute("student") CollegeStudent student,
+                                @RequestParam(value = "after", defaultValue = "0") int after,
+                                @RequestParam(value = "size", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int size,
+                                Model m) {
+        if (studentAndGradeService.isEmailTaken(student.getEmailAddress())) {
+            m.addAttribute("errorMessage", emailTaken(student));
+        } else {
+            try {
+                studentAndGradeService.createStudent(student.getFirstName(), student.getLastName(), student.getEmailAddress());
+            } catch (DataIntegrityViolationException e) {
+                // the same email was registered concurrently
+                m.addAttribute("errorMessage", emailTaken(student));
+            }
+        }
+        addGradebookPage(m, after, size);
         return "index";
     }
 
+    private static String emailTaken(CollegeStudent student) {
+        return "A student with email " + student.getEmailAddress() + " already exists";
+    }
+
     @GetMapping("/delete/student/{id}")
-    public String deleteStudent(@PathVariable int id, Model m) {
+    public String deleteStudent(@PathVariable int id,
+                                @RequestParam(value = "after", defaultValue = "0") int after,
+                                @RequestParam(value = "size", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int size,
+                                Model m) {
 
         if (!studentAndGradeService.checkIfStudentIsNull(id)) {
             return "error";
         }
         studentAndGradeService.deleteStudent(id);
-        Iterable<CollegeStudent> collegeStudents = studentAndGradeService.getGradeBook();
-        m.addAttribute("students", collegeStudents);
+        addGradebookPage(m, after, size);
         return "index";
     }
 
     @GetMapping("/studentInformation/{id}")
     public String studentInformation(@PathVariable int id, Model m) {
+        if (gradeWriteBehindService != null) {
+            gradeWriteBehindService.awaitFlushed(id);
+        }
+        GradebookCollegeStudent student = studentAndGradeService.studentInformation(id);
+        if (student == null) {
+            return "error";
+        }
+        StudentGrades studentGrades = student.getStudentGrades();
+        Map<String, GradeAggregate> aggregates = studentAndGradeService.getGradeAggregates(id);
+        m.addAttribute("student", student);
+        m.addAttribute("mathAverage", gradeAverage(aggregates.get("math"), studentGrades, studentGrades.getMathGradeResults()));
+        m.addAttribute("scienceAverage", gradeAverage(aggregates.get("science"), studentGrades, studentGrades.getScienceGradeResults()));
+        m.addAttribute("historyAverage", gradeAverage(aggregates.get("history"), studentGrades, studentGrades.getHistoryGradeResults()));
         return "studentInformation";
     }
 
+    @PostMapping(value = "/grades/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public GradeIngestResult createGrades(@RequestBody List<GradeSubmission> submissions) {
+        return studentAndGradeService.createGrades(submissions);
+    }
+
+    @PostMapping(value = "/students/delete", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public Map<String, Integer> deleteStudents(@RequestBody List<Integer> ids) {
+        return Map.of("deleted", studentAndGradeService.deleteStudents(ids));
+    }
+
+    @GetMapping("/analytics/cohort")
+    @ResponseBody
+    public ResponseEntity<CohortStatistics> cohortStatistics(@RequestParam(value = "top", defaultValue = "10") int top) {
+        if (top < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(cohortAnalyticsService.getCohortStatistics(Math.min(top, StudentAndGradeService.MAX_PAGE_SIZE)));
+    }
+
+    @GetMapping("/cache/stats")
+    @ResponseBody
+    public Map<String, Map<String, Object>> cacheStatistics() {
+        return cacheStatisticsService.getCacheStatistics();
+    }
+
+    private void addGradebookPage(Model m, int after, int size) {
+        GradebookPage page = studentAndGradeService.getGradeBook(after, size);
+        m.addAttribute("students", page.getStudents());
+        m.addAttribute("page", page);
+    }
+
+    private Object gradeAverage(GradeAggregate aggregate, StudentGrades studentGrades, List<Grade> grades) {
+        if (aggregate != null && aggregate.getGradeCount() > 0) {
+            return aggregate.getAverage();
+        }
+        if (grades.isEmpty()) {
+            return "N/A";
+        }
+        // grades written outside the service have no aggregate until the next checkGradeAggregates(true)
+        return studentGrades.findGradePointAverage(grades);
+    }
+
 }
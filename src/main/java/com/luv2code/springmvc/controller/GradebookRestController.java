@@ -0,0 +1,255 @@
+package com.luv2code.springmvc.controller;
+
+import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradePage;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.Gradebook;
+import com.luv2code.springmvc.models.GradebookCollegeStudent;
+import com.luv2code.springmvc.models.GradebookPage;
+import com.luv2code.springmvc.models.StudentAverage;
+import com.luv2code.springmvc.models.StudentGrades;
+import com.luv2code.springmvc.models.StudentRank;
+import com.luv2code.springmvc.models.StudentSearchPage;
+import com.luv2code.springmvc.models.StudentSummary;
+import com.luv2code.springmvc.models.SubjectGrade;
+import com.luv2code.springmvc.service.GpaLeaderboardService;
+import com.luv2code.springmvc.service.GradeQueueFullException;
+import com.luv2code.springmvc.service.GradeWriteBehindService;
+import com.luv2code.springmvc.service.GradebookExportService;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import com.luv2code.springmvc.service.StudentSearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+// JSON API for integration clients; writes answer with only the affected resource, reads honour If-None-Match
+@RestController
+@RequestMapping("/api")
+public class GradebookRestController {
+
+    @Autowired
+    private StudentAndGradeService studentAndGradeService;
+
+    @Autowired
+    private GradebookExportService gradebookExportService;
+
+    @Autowired
+    private GpaLeaderboardService gpaLeaderboardService;
+
+    @Autowired
+    private StudentSearchService studentSearchService;
+
+    // only present when gradebook.write-behind.enabled=true
+    @Autowired(required = false)
+    private GradeWriteBehindService gradeWriteBehindService;
+
+    @GetMapping("/students")
+    public ResponseEntity<GradebookPage> getStudents(@RequestParam(value = "after", defaultValue = "0") int after,
+                                                     @RequestParam(value = "size", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int size,
+                                                     WebRequest webRequest) {
+        GradebookPage page = studentAndGradeService.getGradeBook(after, size);
+        StringBuilder content = new StringBuilder().append(page.getAfter()).append(':').append(page.getPageSize())
+                .append(':').append(page.getNextCursor()).append(':').append(page.isHasNext());
+        for (StudentSummary student : page.getStudents()) {
+            appendStudent(content, student);
+        }
+        String etag = etag(content);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    // ranked by match quality, then name
+    @GetMapping("/students/search")
+    public StudentSearchPage searchStudents(@RequestParam("q") String query,
+                                            @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                            @RequestParam(value = "limit", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int limit) {
+        return studentSearchService.search(query, offset, limit);
+    }
+
+    @GetMapping("/students/{id}")
+    public ResponseEntity<GradebookCollegeStudent> getStudent(@PathVariable int id, WebRequest webRequest) {
+        if (gradeWriteBehindService != null) {
+            gradeWriteBehindService.awaitFlushed(id);
+        }
+        GradebookCollegeStudent student = studentAndGradeService.studentInformation(id);
+        if (student == null) {
+            return ResponseEntity.notFound().build();
+        }
+        StringBuilder content = new StringBuilder();
+        appendStudent(content, student.getId(), student.getFirstName(), student.getLastName(), student.getEmailAddress());
+        StudentGrades studentGrades = student.getStudentGrades();
+        appendGrades(content, studentGrades.getMathGradeResults());
+        appendGrades(content, studentGrades.getScienceGradeResults());
+        appendGrades(content, studentGrades.getHistoryGradeResults());
+        String etag = etag(content);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).body(student);
+    }
+
+    // one subject's grades a page at a time, without loading the whole report card
+    @GetMapping("/students/{id}/grades")
+    public ResponseEntity<GradePage> getGrades(@PathVariable int id,
+                                               @RequestParam("subject") String subject,
+                                               @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                               @RequestParam(value = "limit", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int limit) {
+        if (!StudentAndGradeService.GRADE_TYPES.contains(subject) || offset < 0 || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (gradeWriteBehindService != null) {
+            gradeWriteBehindService.awaitFlushed(id);
+        }
+        return ResponseEntity.of(Optional.ofNullable(studentAndGradeService.getGradeResults(id, subject, offset, limit)));
+    }
+
+    // report cards for a page of students; each subject is read with one query for the whole page
+    @GetMapping("/report-cards")
+    public Gradebook getReportCards(@RequestParam(value = "after", defaultValue = "0") int after,
+                                    @RequestParam(value = "size", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int size) {
+        return studentAndGradeService.getReportCards(after, size);
+    }
+
+    @PostMapping("/students")
+    public ResponseEntity<CollegeStudent> createStudent(@RequestBody CollegeStudent student) {
+        if (studentAndGradeService.isEmailTaken(student.getEmailAddress())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        CollegeStudent created = studentAndGradeService.createStudent(student.getFirstName(), student.getLastName(),
+                student.getEmailAddress());
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(created.getId()).toUri();
+        return ResponseEntity.created(location).body(created);
+    }
+
+    @DeleteMapping("/students/{id}")
+    public ResponseEntity<Void> deleteStudent(@PathVariable int id) {
+        if (!studentAndGradeService.checkIfStudentIsNull(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        studentAndGradeService.deleteStudent(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/students/{id}/grades")
+    public ResponseEntity<?> createGrade(@PathVariable int id, @RequestBody GradeSubmission submission) {
+        if (!studentAndGradeService.checkIfStudentIsNull(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (gradeWriteBehindService != null) {
+            // queued: the grade has no id yet, so point at the report card that will show it
+            if (!gradeWriteBehindService.submit(submission.getGrade(), id, String.valueOf(submission.getGradeType()))) {
+                return ResponseEntity.badRequest().build();
+            }
+            submission.setStudentId(id);
+            URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/api/students/{id}")
+                    .buildAndExpand(id).toUri();
+            return ResponseEntity.accepted().location(location).body(submission);
+        }
+        SubjectGrade grade = studentAndGradeService.addGrade(submission.getGrade(), id, String.valueOf(submission.getGradeType()));
+        if (grade == null) {
+            // a valid grade is only refused when the student was deleted since the check above
+            return StudentAndGradeService.isValidGrade(submission.getGrade(), String.valueOf(submission.getGradeType()))
+                    ? ResponseEntity.notFound().build() : ResponseEntity.badRequest().build();
+        }
+        URI location = ServletUriComponentsBuilder.fromCurrentContextPath().path("/api/grades/{id}")
+                .buildAndExpand(grade.getId()).toUri();
+        return ResponseEntity.created(location).body(grade);
+    }
+
+    @GetMapping("/grades/{id}")
+    public ResponseEntity<SubjectGrade> getGrade(@PathVariable int id) {
+        return ResponseEntity.of(studentAndGradeService.findGrade(id));
+    }
+
+    @DeleteMapping("/grades/{id}")
+    public ResponseEntity<Void> deleteGrade(@PathVariable int id) {
+        Optional<SubjectGrade> grade = studentAndGradeService.findGrade(id);
+        if (!grade.isPresent() || studentAndGradeService.deleteGrade(id, grade.get().getSubject()) == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<StudentAverage>> getLeaderboard(@RequestParam(value = "subject", defaultValue = GpaLeaderboardService.OVERALL) String subject,
+                                                               @RequestParam(value = "limit", defaultValue = "" + StudentAndGradeService.DEFAULT_PAGE_SIZE) int limit) {
+        if (!GpaLeaderboardService.isRanking(subject)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(gpaLeaderboardService.top(subject, Math.min(limit, StudentAndGradeService.MAX_PAGE_SIZE)));
+    }
+
+    @GetMapping("/students/{id}/rank")
+    public ResponseEntity<StudentRank> getRank(@PathVariable int id,
+                                               @RequestParam(value = "subject", defaultValue = GpaLeaderboardService.OVERALL) String subject) {
+        if (!GpaLeaderboardService.isRanking(subject)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.of(Optional.ofNullable(gpaLeaderboardService.rankOf(subject, id)));
+    }
+
+    // streamed from a forward-only cursor; nothing is materialised beyond the current student
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "format", defaultValue = GradebookExportService.CSV) String format) {
+        if (!GradebookExportService.isSupportedFormat(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+        MediaType mediaType = GradebookExportService.CSV.equals(format)
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("gradebook." + format).build().toString())
+                .body(out -> gradebookExportService.export(format, out));
+    }
+
+    @ExceptionHandler(GradeQueueFullException.class)
+    public ResponseEntity<Void> queueFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public void conflict() {
+    }
+
+    private static void appendStudent(StringBuilder content, StudentSummary student) {
+        appendStudent(content, student.getId(), student.getFirstName(), student.getLastName(), student.getEmailAddress());
+    }
+
+    private static void appendStudent(StringBuilder content, int id, String firstName, String lastName, String emailAddress) {
+        content.append('|').append(id)
+                .append(',').append(firstName)
+                .append(',').append(lastName)
+                .append(',').append(emailAddress);
+    }
+
+    private static void appendGrades(StringBuilder content, List<Grade> grades) {
+        content.append('|');
+        for (Grade grade : grades) {
+            content.append(grade.getId()).append('=').append(grade.getGrade()).append(',');
+        }
+    }
+
+    // derived from what the response shows, so it is stable across instances and cache evictions
+    private static String etag(CharSequence content) {
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -0,0 +1,57 @@
+package com.luv2code.springmvc.models;
+
+// set membership with false positives but no false negatives, in about 10 bits per key at a 1% false-positive rate
+public class BloomFilter {
+
+    private final long[] bits;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    public BloomFilter(int expectedKeys, double falsePositiveRate) {
+        int keys = Math.max(1, expectedKeys);
+        long optimalBits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bitCount = (int) Math.max(64, Math.min(optimalBits, Integer.MAX_VALUE - 63));
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+        bits = new long[(bitCount + 63) >>> 6];
+    }
+
+    public void put(String key) {
+        long hash = hash(key);
+        long step = step(hash);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (int) Math.floorMod(hash + i * step, (long) bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        long step = step(hash);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (int) Math.floorMod(hash + i * step, (long) bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a over the chars, then a finalizer so nearby strings spread across the whole range
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    // double hashing: the i-th probe is hash + i * step, with an odd step derived from the same hash
+    private static long step(long hash) {
+        return (Long.rotateLeft(hash, 32) * 0xc4ceb9fe1a85ec53L) | 1;
+    }
+}
@@ -0,0 +1,44 @@
+package com.luv2code.springmvc.models;
+
+import java.util.Map;
+
+public class CohortStatistics {
+
+    private final Map<String, SubjectStatistics> subjects;
+
+    private final SubjectStatistics overall;
+
+    public CohortStatistics(Map<String, SubjectStatistics> subjects, SubjectStatistics overall) {
+        this.subjects = subjects;
+        this.overall = overall;
+    }
+
+    public Map<String, SubjectStatistics> getSubjects() {
+        return subjects;
+    }
+
+    public SubjectStatistics getOverall() {
+        return overall;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CohortStatistics)) return false;
+        CohortStatistics that = (CohortStatistics) o;
+        return subjects.equals(that.subjects) && overall.equals(that.overall);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * subjects.hashCode() + overall.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "CohortStatistics{" +
+                "subjects=" + subjects +
+                ", overall=" + overall +
+                '}';
+    }
+}
@@ -0,0 +1,119 @@
+package com.luv2code.springmvc.models;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name = "grade_aggregate",
+        uniqueConstraints = @UniqueConstraint(name = "uk_grade_aggregate_student_subject", columnNames = {"student_id", "subject"}))
+public class GradeAggregate {
+    @Id
+    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    private int id;
+    @Column(name="student_id")
+    private int studentId;
+    @Column(name="subject")
+    private String subject;
+    @Column(name="grade_count")
+    private int gradeCount;
+    @Column(name="grade_sum")
+    private double gradeSum;
+    @Column(name="min_grade")
+    private Double minGrade;
+    @Column(name="max_grade")
+    private Double maxGrade;
+
+    public GradeAggregate() {
+
+    }
+
+    public GradeAggregate(int studentId, String subject, int gradeCount, double gradeSum, Double minGrade, Double maxGrade) {
+        this.studentId = studentId;
+        this.subject = subject;
+        this.gradeCount = gradeCount;
+        this.gradeSum = gradeSum;
+        this.minGrade = minGrade;
+        this.maxGrade = maxGrade;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(int studentId) {
+        this.studentId = studentId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    public void setGradeCount(int gradeCount) {
+        this.gradeCount = gradeCount;
+    }
+
+    public double getGradeSum() {
+        return gradeSum;
+    }
+
+    public void setGradeSum(double gradeSum) {
+        this.gradeSum = gradeSum;
+    }
+
+    public Double getMinGrade() {
+        return minGrade;
+    }
+
+    public void setMinGrade(Double minGrade) {
+        this.minGrade = minGrade;
+    }
+
+    public Double getMaxGrade() {
+        return maxGrade;
+    }
+
+    public void setMaxGrade(Double maxGrade) {
+        this.maxGrade = maxGrade;
+    }
+
+    // same rounding as StudentGrades.findGradePointAverage
+    public double getAverage() {
+        if (gradeCount == 0) {
+            return 0;
+        }
+        return GradeColumn.roundToHundredths(gradeSum / gradeCount);
+    }
+
+    public boolean matches(GradeAggregate other) {
+        return gradeCount == other.gradeCount
+                && Math.abs(gradeSum - other.gradeSum) < 1e-6
+                && (gradeCount == 0 || (minGrade.equals(other.minGrade) && maxGrade.equals(other.maxGrade)));
+    }
+
+    @Override
+    public String toString() {
+        return "GradeAggregate{" +
+                "studentId=" + studentId +
+                ", subject='" + subject + '\'' +
+                ", gradeCount=" + gradeCount +
+                ", gradeSum=" + gradeSum +
+                ", minGrade=" + minGrade +
+                ", maxGrade=" + maxGrade +
+                '}';
+    }
+}
@@ -0,0 +1,186 @@
+package com.luv2code.springmvc.models;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// grades of one subject stored as a primitive double[]; none of the statistics allocate per element
+public class GradeColumn {
+
+    private static final double[] EMPTY = new double[0];
+
+    private double[] values;
+
+    private int size;
+
+    // sorted copy for percentiles, reused until the column changes
+    private double[] sorted = EMPTY;
+
+    private boolean sortedValid;
+
+    public GradeColumn() {
+        this(16);
+    }
+
+    public GradeColumn(int capacity) {
+        this.values = capacity == 0 ? EMPTY : new double[capacity];
+    }
+
+    // takes ownership of the array, the caller must not modify it afterwards
+    public static GradeColumn wrap(double[] values, int size) {
+        if (size > values.length) {
+            throw new IllegalArgumentException("Size " + size + " exceeds array length " + values.length);
+        }
+        GradeColumn column = new GradeColumn(0);
+        column.values = values;
+        column.size = size;
+        return column;
+    }
+
+    public static GradeColumn of(List<? extends Grade> grades) {
+        GradeColumn column = new GradeColumn(grades.size());
+        if (grades instanceof RandomAccess) {
+            for (int i = 0; i < grades.size(); i++) {
+                column.add(grades.get(i).getGrade());
+            }
+        } else {
+            for (Grade grade : grades) {
+                column.add(grade.getGrade());
+            }
+        }
+        return column;
+    }
+
+    public void add(double grade) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, Math.max(16, size * 2));
+        }
+        values[size++] = grade;
+        sortedValid = false;
+    }
+
+    public void clear() {
+        size = 0;
+        sortedValid = false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public double sum() {
+        double result = 0;
+        for (int i = 0; i < size; i++) {
+            result += values[i];
+        }
+        return result;
+    }
+
+    public double mean() {
+        return sum() / size;
+    }
+
+    // population variance, two-pass for numerical stability
+    public double variance() {
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double mean = mean();
+        double squares = 0;
+        for (int i = 0; i < size; i++) {
+            double deviation = values[i] - mean;
+            squares += deviation * deviation;
+        }
+        return squares / size;
+    }
+
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    public double min() {
+        return percentile(0);
+    }
+
+    public double max() {
+        return percentile(100);
+    }
+
+    // linear interpolation between the closest ranks, percentile in [0, 100]
+    public double percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (size == 0) {
+            return Double.NaN;
+        }
+        double[] ordered = sortedValues();
+        double rank = percentile / 100 * (size - 1);
+        int lower = (int) rank;
+        int upper = Math.min(lower + 1, size - 1);
+        return ordered[lower] + (rank - lower) * (ordered[upper] - ordered[lower]);
+    }
+
+    // counts grades into equal-width bins over [min, max]; values outside the range are clamped into the end bins
+    public int[] histogram(double min, double max, int[] bins) {
+        Arrays.fill(bins, 0);
+        double width = (max - min) / bins.length;
+        for (int i = 0; i < size; i++) {
+            int bin = (int) ((values[i] - min) / width);
+            bins[Math.max(0, Math.min(bin, bins.length - 1))]++;
+        }
+        return bins;
+    }
+
+    private double[] sortedValues() {
+        if (!sortedValid) {
+            if (sorted.length < size) {
+                sorted = new double[values.length];
+            }
+            System.arraycopy(values, 0, sorted, 0, size);
+            Arrays.sort(sorted, 0, size);
+            sortedValid = true;
+        }
+        return sorted;
+    }
+
+    /*
+     * Same result as BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue(), which rounds
+     * the shortest decimal representation of value. Away from a .xx5 tie the binary and decimal forms round
+     * the same way, so only values that land (almost) exactly on a tie take the BigDecimal path.
+     */
+    public static double roundToHundredths(double value) {
+        double magnitude = Math.abs(value);
+        if (magnitude < 1e6) {
+            double scaled = magnitude * 100;
+            double floor = Math.floor(scaled);
+            double fraction = scaled - floor;
+            if (Math.abs(fraction - 0.5) > 1e-6) {
+                double rounded = (fraction > 0.5 ? floor + 1 : floor) / 100;
+                if (rounded == 0) {
+                    return 0;
+                }
+                return value < 0 ? -rounded : rounded;
+            }
+        }
+        // ties, huge values and NaN/infinity (which throw NumberFormatException, as before)
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    @Override
+    public String toString() {
+        return "GradeColumn{" +
+                "size=" + size +
+                ", values=" + Arrays.toString(Arrays.copyOf(values, size)) +
+                '}';
+    }
+}
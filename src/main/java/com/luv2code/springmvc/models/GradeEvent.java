@@ -0,0 +1,113 @@
+package com.luv2code.springmvc.models;
+
+import java.util.Objects;
+
+// one create/delete in the gradebook event log; ids are assigned before the event is written so replay is deterministic
+public class GradeEvent {
+
+    public enum Type {
+        STUDENT_CREATED, STUDENT_DELETED, GRADE_CREATED, GRADE_DELETED
+    }
+
+    private final Type type;
+
+    private final int studentId;
+
+    private final int gradeId;
+
+    private final String subject;
+
+    private final double grade;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final String emailAddress;
+
+    private GradeEvent(Type type, int studentId, int gradeId, String subject, double grade,
+                       String firstName, String lastName, String emailAddress) {
+        this.type = type;
+        this.studentId = studentId;
+        this.gradeId = gradeId;
+        this.subject = subject;
+        this.grade = grade;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.emailAddress = emailAddress;
+    }
+
+    public static GradeEvent studentCreated(int studentId, String firstName, String lastName, String emailAddress) {
+        return new GradeEvent(Type.STUDENT_CREATED, studentId, 0, null, 0, firstName, lastName, emailAddress);
+    }
+
+    public static GradeEvent studentDeleted(int studentId) {
+        return new GradeEvent(Type.STUDENT_DELETED, studentId, 0, null, 0, null, null, null);
+    }
+
+    public static GradeEvent gradeCreated(int gradeId, int studentId, String subject, double grade) {
+        return new GradeEvent(Type.GRADE_CREATED, studentId, gradeId, subject, grade, null, null, null);
+    }
+
+    public static GradeEvent gradeDeleted(int gradeId, int studentId) {
+        return new GradeEvent(Type.GRADE_DELETED, studentId, gradeId, null, 0, null, null, null);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public int getGradeId() {
+        return gradeId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public double getGrade() {
+        return grade;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        GradeEvent that = (GradeEvent) o;
+        return studentId == that.studentId && gradeId == that.gradeId && Double.compare(that.grade, grade) == 0
+                && type == that.type && Objects.equals(subject, that.subject) && Objects.equals(firstName, that.firstName)
+                && Objects.equals(lastName, that.lastName) && Objects.equals(emailAddress, that.emailAddress);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, studentId, gradeId, subject, grade, firstName, lastName, emailAddress);
+    }
+
+    @Override
+    public String toString() {
+        return "GradeEvent{" +
+                "type=" + type +
+                ", studentId=" + studentId +
+                ", gradeId=" + gradeId +
+                ", subject='" + subject + '\'' +
+                ", grade=" + grade +
+                '}';
+    }
+}
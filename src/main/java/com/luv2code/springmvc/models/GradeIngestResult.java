@@ -0,0 +1,33 @@
+package com.luv2code.springmvc.models;
+
+public class GradeIngestResult {
+
+    private final int submitted;
+
+    private final int created;
+
+    public GradeIngestResult(int submitted, int created) {
+        this.submitted = submitted;
+        this.created = created;
+    }
+
+    public int getSubmitted() {
+        return submitted;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getRejected() {
+        return submitted - created;
+    }
+
+    @Override
+    public String toString() {
+        return "GradeIngestResult{" +
+                "submitted=" + submitted +
+                ", created=" + created +
+                '}';
+    }
+}
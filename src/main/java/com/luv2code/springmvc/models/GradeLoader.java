@@ -0,0 +1,11 @@
+package com.luv2code.springmvc.models;
+
+import java.util.List;
+
+// supplies a LazyStudentGrades with one subject's grades, in id order, when they are first needed
+public interface GradeLoader {
+
+    List<Grade> loadGrades(int studentId, String subject);
+
+    List<Grade> loadGrades(int studentId, String subject, int offset, int limit);
+}
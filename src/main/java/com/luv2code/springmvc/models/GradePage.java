@@ -0,0 +1,63 @@
+package com.luv2code.springmvc.models;
+
+import java.util.List;
+
+public class GradePage {
+
+    private final int studentId;
+
+    private final String subject;
+
+    private final List<Grade> grades;
+
+    private final int offset;
+
+    private final int pageSize;
+
+    private final boolean hasNext;
+
+    public GradePage(int studentId, String subject, List<Grade> grades, int offset, int pageSize, boolean hasNext) {
+        this.studentId = studentId;
+        this.subject = subject;
+        this.grades = grades;
+        this.offset = offset;
+        this.pageSize = pageSize;
+        this.hasNext = hasNext;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public List<Grade> getGrades() {
+        return grades;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public String toString() {
+        return "GradePage{" +
+                "studentId=" + studentId +
+                ", subject='" + subject + '\'' +
+                ", grades=" + grades +
+                ", offset=" + offset +
+                ", pageSize=" + pageSize +
+                ", hasNext=" + hasNext +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.luv2code.springmvc.models;
+
+import java.util.List;
+
+public class GradebookPage {
+
+    private final List<StudentSummary> students;
+
+    private final int after;
+
+    private final int pageSize;
+
+    private final int nextCursor;
+
+    private final boolean hasNext;
+
+    public GradebookPage(List<StudentSummary> students, int after, int pageSize, int nextCursor, boolean hasNext) {
+        this.students = students;
+        this.after = after;
+        this.pageSize = pageSize;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public List<StudentSummary> getStudents() {
+        return students;
+    }
+
+    public int getAfter() {
+        return after;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    @Override
+    public String toString() {
+        return "GradebookPage{" +
+                "students=" + students +
+                ", after=" + after +
+                ", pageSize=" + pageSize +
+                ", nextCursor=" + nextCursor +
+                ", hasNext=" + hasNext +
+                '}';
+    }
+}
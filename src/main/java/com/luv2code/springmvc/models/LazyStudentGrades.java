@@ -0,0 +1,74 @@
+package com.luv2code.springmvc.models;
+
+import java.util.List;
+
+/*
+ * StudentGrades whose subjects are loaded on the first call to their getter, so a page that only shows names
+ * never reads a grade. A page can also be read without loading the whole subject. Built per request and not
+ * thread-safe.
+ */
+public class LazyStudentGrades extends StudentGrades {
+
+    private final int studentId;
+
+    private final GradeLoader loader;
+
+    public LazyStudentGrades(int studentId, GradeLoader loader) {
+        this.studentId = studentId;
+        this.loader = loader;
+    }
+
+    @Override
+    public List<Grade> getMathGradeResults() {
+        if (!isLoaded(MathGrade.SUBJECT)) {
+            setMathGradeResults(loader.loadGrades(studentId, MathGrade.SUBJECT));
+        }
+        return super.getMathGradeResults();
+    }
+
+    @Override
+    public List<Grade> getScienceGradeResults() {
+        if (!isLoaded(ScienceGrade.SUBJECT)) {
+            setScienceGradeResults(loader.loadGrades(studentId, ScienceGrade.SUBJECT));
+        }
+        return super.getScienceGradeResults();
+    }
+
+    @Override
+    public List<Grade> getHistoryGradeResults() {
+        if (!isLoaded(HistoryGrade.SUBJECT)) {
+            setHistoryGradeResults(loader.loadGrades(studentId, HistoryGrade.SUBJECT));
+        }
+        return super.getHistoryGradeResults();
+    }
+
+    // reads just the page unless the subject is already in memory
+    @Override
+    public List<Grade> getGradeResults(String subject, int offset, int limit) {
+        checkPage(offset, limit);
+        if (isLoaded(subject)) {
+            return super.getGradeResults(subject, offset, limit);
+        }
+        return loader.loadGrades(studentId, subject, offset, limit);
+    }
+
+    public boolean isLoaded(String subject) {
+        switch (subject) {
+            case MathGrade.SUBJECT:
+                return super.getMathGradeResults() != null;
+            case ScienceGrade.SUBJECT:
+                return super.getScienceGradeResults() != null;
+            case HistoryGrade.SUBJECT:
+                return super.getHistoryGradeResults() != null;
+            default:
+                throw new IllegalArgumentException("Unknown grade type: " + subject);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyStudentGrades{" +
+                "studentId=" + studentId +
+                '}';
+    }
+}
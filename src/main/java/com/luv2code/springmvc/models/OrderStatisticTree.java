@@ -0,0 +1,141 @@
+package com.luv2code.springmvc.models;
+
+import java.util.SplittableRandom;
+
+// set of distinct long keys with subtree sizes (a treap): add, remove, rank and select in O(log n) expected time
+public class OrderStatisticTree {
+
+    private static final class Node {
+        private final long key;
+        private final int priority;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        Node(long key, int priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom(0x5EED);
+
+    private Node root;
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean contains(long key) {
+        Node node = root;
+        while (node != null) {
+            if (key == node.key) {
+                return true;
+            }
+            node = key < node.key ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public boolean add(long key) {
+        if (contains(key)) {
+            return false;
+        }
+        Node[] parts = split(root, key);
+        root = merge(merge(parts[0], new Node(key, random.nextInt())), parts[1]);
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (!contains(key)) {
+            return false;
+        }
+        Node[] lower = split(root, key);
+        Node[] upper = split(lower[1], key + 1);
+        root = merge(lower[0], upper[1]);
+        return true;
+    }
+
+    // number of keys smaller than key
+    public int countLess(long key) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (key <= node.key) {
+                node = node.left;
+            } else {
+                count += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return count;
+    }
+
+    // the key at a zero-based position in ascending order
+    public long get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.key;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    // {keys < key, keys >= key}
+    private static Node[] split(Node node, long key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.key < key) {
+            Node[] parts = split(node.right, key);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, key);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    // every key in left is smaller than every key in right
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
@@ -0,0 +1,50 @@
+package com.luv2code.springmvc.models;
+
+public class StudentAverage {
+
+    private final int studentId;
+
+    private final int gradeCount;
+
+    private final double average;
+
+    public StudentAverage(int studentId, int gradeCount, double average) {
+        this.studentId = studentId;
+        this.gradeCount = gradeCount;
+        this.average = average;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof StudentAverage)) return false;
+        StudentAverage that = (StudentAverage) o;
+        return studentId == that.studentId && gradeCount == that.gradeCount && average == that.average;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * studentId + gradeCount) + Double.hashCode(average);
+    }
+
+    @Override
+    public String toString() {
+        return "StudentAverage{" +
+                "studentId=" + studentId +
+                ", gradeCount=" + gradeCount +
+                ", average=" + average +
+                '}';
+    }
+}
@@ -1,10 +1,11 @@
 package com.luv2code.springmvc.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.RandomAccess;
 
 @Component
 public class StudentGrades {
@@ -15,10 +16,24 @@ public class StudentGrades {
 
     private List<Grade> historyGradeResults;
 
+    // primitive copies of the lists above, built on first use; volatile because cached report cards are shared by
+    // request threads, so a column built by one must be seen whole by the others
+    private volatile GradeColumn mathGradeColumn;
+
+    private volatile GradeColumn scienceGradeColumn;
+
+    private volatile GradeColumn historyGradeColumn;
+
     public StudentGrades() {}
 
     public double addGradeResultsForSingleClass(List<Grade> grades) {
         double result = 0;
+        if (grades instanceof RandomAccess) {
+            for (int i = 0; i < grades.size(); i++) {
+                result += grades.get(i).getGrade();
+            }
+            return result;
+        }
         for (Grade i : grades) {
             result += i.getGrade();
         }
@@ -31,10 +46,12 @@ public class StudentGrades {
         double result = sum / lengthOfGrades;
 
         // add a round function
-        BigDecimal resultRound = BigDecimal.valueOf(result);
-        resultRound = resultRound.setScale(2, RoundingMode.HALF_UP);
-        return resultRound.doubleValue();
+        return GradeColumn.roundToHundredths(result);
+
+    }
 
+    public double findGradePointAverage(GradeColumn grades) {
+        return GradeColumn.roundToHundredths(grades.mean());
     }
 
     public List<Grade> getMathGradeResults() {
@@ -43,6 +60,7 @@ public class StudentGrades {
 
     public void setMathGradeResults(List<Grade> mathGradeResults) {
         this.mathGradeResults = mathGradeResults;
+        this.mathGradeColumn = null;
     }
 
     public List<Grade> getScienceGradeResults() {
@@ -51,6 +69,7 @@ public class StudentGrades {
 
     public void setScienceGradeResults(List<Grade> scienceGradeResults) {
         this.scienceGradeResults = scienceGradeResults;
+        this.scienceGradeColumn = null;
     }
 
     public List<Grade> getHistoryGradeResults() {
@@ -59,6 +78,69 @@ public class StudentGrades {
 
     public void setHistoryGradeResults(List<Grade> historyGradeResults) {
         this.historyGradeResults = historyGradeResults;
+        this.historyGradeColumn = null;
+    }
+
+    // a page of one subject's grades in id order; empty past the end
+    public List<Grade> getGradeResults(String subject, int offset, int limit) {
+        checkPage(offset, limit);
+        List<Grade> grades = getGradeResults(subject);
+        if (grades == null || offset >= grades.size()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(grades.subList(offset, (int) Math.min(grades.size(), (long) offset + limit)));
+    }
+
+    protected static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Negative page offset or limit: " + offset + ", " + limit);
+        }
+    }
+
+    protected List<Grade> getGradeResults(String subject) {
+        switch (subject) {
+            case MathGrade.SUBJECT:
+                return getMathGradeResults();
+            case ScienceGrade.SUBJECT:
+                return getScienceGradeResults();
+            case HistoryGrade.SUBJECT:
+                return getHistoryGradeResults();
+            default:
+                throw new IllegalArgumentException("Unknown grade type: " + subject);
+        }
+    }
+
+    @JsonIgnore
+    public GradeColumn getMathGradeColumn() {
+        GradeColumn column = mathGradeColumn;
+        List<Grade> grades = getMathGradeResults();
+        if (column == null && grades != null) {
+            column = GradeColumn.of(grades);
+            mathGradeColumn = column;
+        }
+        return column;
+    }
+
+    @JsonIgnore
+    public GradeColumn getScienceGradeColumn() {
+        GradeColumn column = scienceGradeColumn;
+        List<Grade> grades = getScienceGradeResults();
+        if (column == null && grades != null) {
+            column = GradeColumn.of(grades);
+            scienceGradeColumn = column;
+        }
+        return column;
+    }
+
+    @JsonIgnore
+    public GradeColumn getHistoryGradeColumn() {
+        GradeColumn column = historyGradeColumn;
+        List<Grade> grades = getHistoryGradeResults();
+        if (column == null && grades != null) {
+            column = GradeColumn.of(grades);
+            historyGradeColumn = column;
+        }
+        return column;
     }
 
     @Override
@@ -0,0 +1,63 @@
+package com.luv2code.springmvc.models;
+
+public class StudentRank {
+
+    private final int studentId;
+
+    private final String subject;
+
+    private final double average;
+
+    // 1 + the number of students with a strictly higher average, so equal averages share a rank
+    private final int rank;
+
+    private final int rankedStudents;
+
+    // share of ranked students whose average is at most this student's, 0-100
+    private final double percentile;
+
+    public StudentRank(int studentId, String subject, double average, int rank, int rankedStudents, double percentile) {
+        this.studentId = studentId;
+        this.subject = subject;
+        this.average = average;
+        this.rank = rank;
+        this.rankedStudents = rankedStudents;
+        this.percentile = percentile;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public double getAverage() {
+        return average;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getRankedStudents() {
+        return rankedStudents;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    @Override
+    public String toString() {
+        return "StudentRank{" +
+                "studentId=" + studentId +
+                ", subject='" + subject + '\'' +
+                ", average=" + average +
+                ", rank=" + rank +
+                ", rankedStudents=" + rankedStudents +
+                ", percentile=" + percentile +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package com.luv2code.springmvc.models;
+
+import java.util.List;
+
+public class StudentSearchPage {
+
+    private final String query;
+
+    private final List<StudentSummary> students;
+
+    private final int offset;
+
+    private final int pageSize;
+
+    // matches for the whole query, not just this page
+    private final int total;
+
+    public StudentSearchPage(String query, List<StudentSummary> students, int offset, int pageSize, int total) {
+        this.query = query;
+        this.students = students;
+        this.offset = offset;
+        this.pageSize = pageSize;
+        this.total = total;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<StudentSummary> getStudents() {
+        return students;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isHasNext() {
+        return offset + students.size() < total;
+    }
+
+    @Override
+    public String toString() {
+        return "StudentSearchPage{" +
+                "query='" + query + '\'' +
+                ", students=" + students +
+                ", offset=" + offset +
+                ", pageSize=" + pageSize +
+                ", total=" + total +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package com.luv2code.springmvc.models;
+
+/*
+ * What listings show. StudentDao returns it as an interface projection that selects just these columns, so no
+ * entity is loaded; CollegeStudent deliberately does not implement it, or Spring Data would return entities.
+ */
+public interface StudentSummary {
+
+    int getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmailAddress();
+
+    static StudentSummary of(int id, String firstName, String lastName, String emailAddress) {
+        return new Value(id, firstName, lastName, emailAddress);
+    }
+
+    record Value(int id, String firstName, String lastName, String emailAddress) implements StudentSummary {
+
+        @Override
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public String getFirstName() {
+            return firstName;
+        }
+
+        @Override
+        public String getLastName() {
+            return lastName;
+        }
+
+        @Override
+        public String getEmailAddress() {
+            return emailAddress;
+        }
+    }
+}
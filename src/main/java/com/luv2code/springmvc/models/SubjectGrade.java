@@ -0,0 +1,73 @@
+package com.luv2code.springmvc.models;
+
+import jakarta.persistence.*;
+
+import java.util.List;
+
+@Entity
+@Table(name = "grade", indexes = @Index(name = "idx_grade_student_subject", columnList = "student_id, subject"))
+@Inheritance(strategy = InheritanceType.SINGLE_TABLE)
+@DiscriminatorColumn(name = "subject", length = 32)
+public abstract class SubjectGrade implements Grade {
+
+    // every subject in report card order; the services, DAOs and exports all iterate this list
+    public static final List<String> SUBJECTS = List.of(MathGrade.SUBJECT, ScienceGrade.SUBJECT, HistoryGrade.SUBJECT);
+
+    @Id
+    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    private int id;
+    @Column(name="student_id")
+    private int studentId;
+    @Column(name="grade")
+    private double grade;
+
+    protected SubjectGrade() {
+
+    }
+
+    protected SubjectGrade(double grade) {
+        this.grade = grade;
+    }
+
+    // a new subject needs a subclass with its own discriminator value, an entry in SUBJECTS and a case here, and
+    // its own grade list on StudentGrades, which report cards and templates read per subject
+    public static SubjectGrade of(String subject, double grade) {
+        switch (subject) {
+            case MathGrade.SUBJECT:
+                return new MathGrade(grade);
+            case ScienceGrade.SUBJECT:
+                return new ScienceGrade(grade);
+            case HistoryGrade.SUBJECT:
+                return new HistoryGrade(grade);
+            default:
+                throw new IllegalArgumentException("Unknown grade type: " + subject);
+        }
+    }
+
+    public abstract String getSubject();
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public void setStudentId(int studentId) {
+        this.studentId = studentId;
+    }
+
+    @Override
+    public double getGrade() {
+        return grade;
+    }
+
+    public void setGrade(double grade) {
+        this.grade = grade;
+    }
+}
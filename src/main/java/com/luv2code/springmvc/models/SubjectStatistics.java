@@ -0,0 +1,126 @@
+package com.luv2code.springmvc.models;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+public class SubjectStatistics {
+
+    private final String subject;
+
+    private final long count;
+
+    private final double mean;
+
+    private final double variance;
+
+    private final double min;
+
+    private final double max;
+
+    private final double median;
+
+    private final double ninetiethPercentile;
+
+    // ten buckets of width 10 over 0-100, a grade of 100 counts in the last bucket
+    private final int[] histogram;
+
+    private final List<StudentAverage> topStudents;
+
+    public SubjectStatistics(String subject, long count, double mean, double variance, double min, double max,
+                             double median, double ninetiethPercentile, int[] histogram, List<StudentAverage> topStudents) {
+        this.subject = subject;
+        this.count = count;
+        this.mean = mean;
+        this.variance = variance;
+        this.min = min;
+        this.max = max;
+        this.median = median;
+        this.ninetiethPercentile = ninetiethPercentile;
+        this.histogram = histogram;
+        this.topStudents = topStudents;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(variance);
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getMedian() {
+        return median;
+    }
+
+    public double getNinetiethPercentile() {
+        return ninetiethPercentile;
+    }
+
+    public int[] getHistogram() {
+        return histogram;
+    }
+
+    public List<StudentAverage> getTopStudents() {
+        return topStudents;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SubjectStatistics)) return false;
+        SubjectStatistics that = (SubjectStatistics) o;
+        return count == that.count
+                && Double.compare(mean, that.mean) == 0
+                && Double.compare(variance, that.variance) == 0
+                && Double.compare(min, that.min) == 0
+                && Double.compare(max, that.max) == 0
+                && Double.compare(median, that.median) == 0
+                && Double.compare(ninetiethPercentile, that.ninetiethPercentile) == 0
+                && subject.equals(that.subject)
+                && Arrays.equals(histogram, that.histogram)
+                && topStudents.equals(that.topStudents);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(subject, count, mean, variance, min, max, median, ninetiethPercentile, topStudents)
+                + Arrays.hashCode(histogram);
+    }
+
+    @Override
+    public String toString() {
+        return "SubjectStatistics{" +
+                "subject='" + subject + '\'' +
+                ", count=" + count +
+                ", mean=" + mean +
+                ", variance=" + variance +
+                ", min=" + min +
+                ", max=" + max +
+                ", median=" + median +
+                ", ninetiethPercentile=" + ninetiethPercentile +
+                ", histogram=" + Arrays.toString(histogram) +
+                ", topStudents=" + topStudents +
+                '}';
+    }
+}
@@ -0,0 +1,21 @@
+package com.luv2code.springmvc.repository;
+
+import com.luv2code.springmvc.models.GradeAggregate;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface GradeAggregateDao extends CrudRepository<GradeAggregate, Integer> {
+
+    public GradeAggregate findByStudentIdAndSubject(int studentId, String subject);
+
+    public List<GradeAggregate> findByStudentId(int studentId);
+
+    @Modifying
+    @Query("delete from GradeAggregate a where a.studentId in :studentIds")
+    public int deleteByStudentIdIn(@Param("studentIds") Collection<Integer> studentIds);
+}
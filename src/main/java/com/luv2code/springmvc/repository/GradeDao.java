@@ -0,0 +1,20 @@
+package com.luv2code.springmvc.repository;
+
+import com.luv2code.springmvc.models.SubjectGrade;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+// every subject lives in the grade table, so one range scan on (student_id, subject) covers a report card
+public interface GradeDao extends CrudRepository<SubjectGrade, Integer> {
+
+    public List<SubjectGrade> findByStudentIdInOrderByIdAsc(Collection<Integer> studentIds);
+
+    @Modifying
+    @Query("delete from SubjectGrade g where g.studentId in :studentIds")
+    public int deleteByStudentIdIn(@Param("studentIds") Collection<Integer> studentIds);
+}
@@ -0,0 +1,378 @@
+package com.luv2code.springmvc.repository;
+
+import com.luv2code.springmvc.models.GradeEvent;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/*
+ * Append-only, memory-mapped log of GradeEvents, split into generations: snapshot-N.bin holds the state before
+ * events-N.log. A record is [int length][int crc32][payload]; the length is written last, so a record torn by a
+ * crash reads as length 0 (or fails its CRC) and marks the end of the log. Writes land in the page cache as soon as
+ * append returns, so they survive a process crash; sync() also forces them to disk when forceOnSync is set.
+ * The previous snapshot and every log after it are kept until a newer snapshot has been read back intact, so a
+ * damaged newest snapshot falls back to the one before it.
+ * Not thread-safe: the caller serialises appends, syncs and startSnapshot; writeSnapshot may run on another thread,
+ * one snapshot at a time.
+ */
+public class GradeEventLog implements Closeable {
+
+    private static final int RECORD_HEADER = 8;
+
+    private static final int SNAPSHOT_MAGIC = 0x47424B53;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final boolean forceOnSync;
+
+    private long generation;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private long eventsSinceSnapshot;
+
+    // newest snapshot known to be intact, 0 for none; only recover and writeSnapshot touch it
+    private long snapshotGeneration;
+
+    public GradeEventLog(Path directory, int segmentSize, boolean forceOnSync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceOnSync = forceOnSync;
+    }
+
+    /*
+     * Feeds the newest intact snapshot and every later event to the consumer, then opens the log for appending.
+     * Fails when snapshots exist but none is intact and the logs no longer reach back to generation 1, rather than
+     * starting from a partial gradebook.
+     */
+    public SnapshotHeader recover(Consumer<GradeEvent> consumer) throws IOException {
+        Files.createDirectories(directory);
+        TreeSet<Long> snapshots = generations(".bin");
+        TreeSet<Long> logs = generations(".log");
+        long intact = 0;
+        for (Long candidate : snapshots.descendingSet()) {
+            if (readSnapshot(snapshotFile(candidate), null) != null) {
+                intact = candidate;
+                break;
+            }
+        }
+        if (intact == 0 && !snapshots.isEmpty() && !logs.contains(1L)) {
+            throw new IOException("No intact snapshot among " + snapshots + " in " + directory
+                    + " and the event log does not start at generation 1");
+        }
+        SnapshotHeader header = intact == 0 ? new SnapshotHeader(0, 0) : readSnapshot(snapshotFile(intact), consumer);
+        snapshotGeneration = intact;
+
+        long lastGeneration = Math.max(intact, 1);
+        int end = 0;
+        for (Long logGeneration : logs.tailSet(intact)) {
+            end = replay(logFile(logGeneration), consumer);
+            lastGeneration = logGeneration;
+        }
+
+        openGeneration(lastGeneration);
+        // clear whatever a torn record left behind so the next append starts on clean bytes
+        int tornLength = buffer.capacity() - end >= RECORD_HEADER ? Math.max(0, buffer.getInt(end)) : 0;
+        for (int i = end; i < buffer.capacity() && i < end + RECORD_HEADER + tornLength; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.position(end);
+        return header;
+    }
+
+    public void append(GradeEvent event) throws IOException {
+        byte[] payload = encode(event);
+        ensureCapacity(RECORD_HEADER + payload.length + RECORD_HEADER);
+        int position = buffer.position();
+        buffer.putInt(position + 4, crc(payload, 0, payload.length));
+        buffer.put(position + RECORD_HEADER, payload);
+        buffer.putInt(position, payload.length);
+        buffer.position(position + RECORD_HEADER + payload.length);
+        eventsSinceSnapshot++;
+    }
+
+    public void sync() {
+        if (forceOnSync) {
+            buffer.force();
+        }
+    }
+
+    public long getEventsSinceSnapshot() {
+        return eventsSinceSnapshot;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    // starts the generation that follows a snapshot of the current state and returns it for writeSnapshot
+    public long startSnapshot() throws IOException {
+        buffer.force();
+        openGeneration(generation + 1);
+        eventsSinceSnapshot = 0;
+        return generation;
+    }
+
+    /*
+     * Writes the state as of the start of the given generation as its snapshot. The snapshot is written to a
+     * temporary file, read back and only then renamed into place; the older generations are deleted afterwards, up
+     * to the previous snapshot, which stays as the fallback.
+     */
+    public void writeSnapshot(long next, SnapshotHeader header, Iterable<GradeEvent> state) throws IOException {
+        Path temporary = directory.resolve("snapshot-" + next + ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(out)), new CRC32());
+            DataOutputStream data = new DataOutputStream(checked);
+            data.writeInt(SNAPSHOT_MAGIC);
+            data.writeInt(header.getNextStudentId());
+            data.writeInt(header.getNextGradeId());
+            for (GradeEvent event : state) {
+                byte[] payload = encode(event);
+                data.writeInt(payload.length);
+                data.write(payload);
+            }
+            data.writeInt(-1);
+            long crc = checked.getChecksum().getValue();
+            data.writeLong(crc);
+            data.flush();
+            out.force(true);
+        }
+        if (readSnapshot(temporary, null) == null) {
+            throw new IOException("Snapshot " + temporary + " did not read back intact");
+        }
+        Files.move(temporary, snapshotFile(next), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        deleteGenerationsBefore(snapshotGeneration);
+        snapshotGeneration = next;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    // returns the offset after the last intact record
+    private int replay(Path file, Consumer<GradeEvent> consumer) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer log = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int position = 0;
+            while (position + RECORD_HEADER <= log.limit()) {
+                int length = log.getInt(position);
+                if (length <= 0 || position + RECORD_HEADER + length > log.limit()) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                log.get(position + RECORD_HEADER, payload);
+                if (log.getInt(position + 4) != crc(payload, 0, length)) {
+                    break;
+                }
+                consumer.accept(decode(new DataInputStream(new ByteArrayInputStream(payload))));
+                position += RECORD_HEADER + length;
+            }
+            return position;
+        }
+    }
+
+    // validates the checksum when consumer is null, otherwise streams the events; null for a missing or damaged file
+    private SnapshotHeader readSnapshot(Path file, Consumer<GradeEvent> consumer) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(in), new CRC32());
+            DataInputStream data = new DataInputStream(checked);
+            if (data.readInt() != SNAPSHOT_MAGIC) {
+                return null;
+            }
+            SnapshotHeader header = new SnapshotHeader(data.readInt(), data.readInt());
+            byte[] payload = new byte[256];
+            for (int length = data.readInt(); length != -1; length = data.readInt()) {
+                if (length < 0) {
+                    return null;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                data.readFully(payload, 0, length);
+                if (consumer != null) {
+                    consumer.accept(decode(new DataInputStream(new ByteArrayInputStream(payload, 0, length))));
+                }
+            }
+            long expected = checked.getChecksum().getValue();
+            return data.readLong() == expected ? header : null;
+        } catch (IOException e) {
+            if (consumer != null) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private void openGeneration(long next) throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        generation = next;
+        channel = FileChannel.open(logFile(next), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int position = buffer.position();
+        long size = Math.max((long) buffer.capacity() * 2, (long) position + bytes);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Event log generation " + generation + " is full; take a snapshot");
+        }
+        buffer.force();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.position(position);
+    }
+
+    private TreeSet<Long> generations(String suffix) throws IOException {
+        TreeSet<Long> generations = new TreeSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(suffix) && (name.startsWith("events-") || name.startsWith("snapshot-")))
+                    .forEach(name -> generations.add(Long.parseLong(name.substring(name.indexOf('-') + 1, name.length() - suffix.length()))));
+        }
+        return generations;
+    }
+
+    private void deleteGenerationsBefore(long keep) throws IOException {
+        List<Path> obsolete = new ArrayList<>();
+        for (Long old : generations(".log").headSet(keep)) {
+            obsolete.add(logFile(old));
+        }
+        for (Long old : generations(".bin").headSet(keep)) {
+            obsolete.add(snapshotFile(old));
+        }
+        for (Path file : obsolete) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // not every platform can sync a directory; the rename itself is still atomic
+        }
+    }
+
+    private Path logFile(long generation) {
+        return directory.resolve("events-" + generation + ".log");
+    }
+
+    private Path snapshotFile(long generation) {
+        return directory.resolve("snapshot-" + generation + ".bin");
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(GradeEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(event.getType().ordinal());
+        out.writeInt(event.getStudentId());
+        switch (event.getType()) {
+            case STUDENT_CREATED:
+                writeNullable(out, event.getFirstName());
+                writeNullable(out, event.getLastName());
+                writeNullable(out, event.getEmailAddress());
+                break;
+            case GRADE_CREATED:
+                out.writeInt(event.getGradeId());
+                out.writeUTF(event.getSubject());
+                out.writeDouble(event.getGrade());
+                break;
+            case GRADE_DELETED:
+                out.writeInt(event.getGradeId());
+                break;
+            default:
+                break;
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static GradeEvent decode(DataInputStream in) throws IOException {
+        GradeEvent.Type type = GradeEvent.Type.values()[in.readByte()];
+        int studentId = in.readInt();
+        switch (type) {
+            case STUDENT_CREATED:
+                return GradeEvent.studentCreated(studentId, readNullable(in), readNullable(in), readNullable(in));
+            case STUDENT_DELETED:
+                return GradeEvent.studentDeleted(studentId);
+            case GRADE_CREATED:
+                return GradeEvent.gradeCreated(in.readInt(), studentId, in.readUTF(), in.readDouble());
+            default:
+                return GradeEvent.gradeDeleted(in.readInt(), studentId);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public static class SnapshotHeader {
+        private final int nextStudentId;
+        private final int nextGradeId;
+
+        public SnapshotHeader(int nextStudentId, int nextGradeId) {
+            this.nextStudentId = nextStudentId;
+            this.nextGradeId = nextGradeId;
+        }
+
+        public int getNextStudentId() {
+            return nextStudentId;
+        }
+
+        public int getNextGradeId() {
+            return nextGradeId;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.luv2code.springmvc.repository;
+
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradeAggregate;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.SubjectGrade;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class GradeJdbcDao {
+
+    private static final int ORPHAN_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${gradebook.scan.fetch-size:1000}")
+    private int scanFetchSize;
+
+    // plain JDBC batches: the database assigns the identity ids, so nothing is read back per row
+    public int batchInsert(String gradeType, Collection<GradeSubmission> grades, int batchSize) {
+        String subject = checkGradeType(gradeType);
+        String sql = "insert into grade(subject, student_id, grade) values (?, ?, ?)";
+        return sumUpdateCounts(jdbcTemplate.batchUpdate(sql, grades, batchSize, (ps, grade) -> {
+            ps.setString(1, subject);
+            ps.setInt(2, grade.getStudentId());
+            ps.setDouble(3, grade.getGrade());
+        }));
+    }
+
+    private static final String ADD_TO_AGGREGATE = "update grade_aggregate set grade_count = grade_count + ?, "
+            + "grade_sum = grade_sum + ?, "
+            + "min_grade = least(coalesce(min_grade, ?), ?), "
+            + "max_grade = greatest(coalesce(max_grade, ?), ?) "
+            + "where student_id = ? and subject = ?";
+
+    // applies count/sum/min/max deltas to rows that exist; batched update counts may be SUCCESS_NO_INFO, so they
+    // cannot tell a missing row apart
+    public void addToAggregates(List<GradeAggregate> deltas, int batchSize) {
+        jdbcTemplate.batchUpdate(ADD_TO_AGGREGATE, deltas, batchSize, (ps, delta) -> {
+            ps.setInt(1, delta.getGradeCount());
+            ps.setDouble(2, delta.getGradeSum());
+            ps.setDouble(3, delta.getMinGrade());
+            ps.setDouble(4, delta.getMinGrade());
+            ps.setDouble(5, delta.getMaxGrade());
+            ps.setDouble(6, delta.getMaxGrade());
+            ps.setInt(7, delta.getStudentId());
+            ps.setString(8, delta.getSubject());
+        });
+    }
+
+    // a single statement, so the count is exact: 0 means the aggregate row does not exist yet
+    public int addToAggregate(GradeAggregate delta) {
+        return jdbcTemplate.update(ADD_TO_AGGREGATE, delta.getGradeCount(), delta.getGradeSum(),
+                delta.getMinGrade(), delta.getMinGrade(), delta.getMaxGrade(), delta.getMaxGrade(),
+                delta.getStudentId(), delta.getSubject());
+    }
+
+    // "studentId:subject" of the aggregate rows that exist for the given students
+    public Set<String> findAggregateKeys(Collection<Integer> studentIds) {
+        Set<String> keys = new HashSet<>();
+        if (studentIds.isEmpty()) {
+            return keys;
+        }
+        jdbcTemplate.query("select student_id, subject from grade_aggregate where student_id in ("
+                        + String.join(",", Collections.nCopies(studentIds.size(), "?")) + ")",
+                (RowCallbackHandler) rs -> keys.add(rs.getInt(1) + ":" + rs.getString(2)), studentIds.toArray());
+        return keys;
+    }
+
+    public void insertAggregate(GradeAggregate aggregate) {
+        jdbcTemplate.update("insert into grade_aggregate(student_id, subject, grade_count, grade_sum, min_grade, max_grade) "
+                        + "values (?, ?, ?, ?, ?, ?)",
+                aggregate.getStudentId(), aggregate.getSubject(), aggregate.getGradeCount(), aggregate.getGradeSum(),
+                aggregate.getMinGrade(), aggregate.getMaxGrade());
+    }
+
+    // min/max are only re-read from the grade table when the removed grade was one of the extremes
+    public int removeFromAggregate(int studentId, String gradeType, int gradeId, double grade) {
+        String remaining = "from grade where student_id = ? and subject = ? and id <> ?";
+        return jdbcTemplate.update("update grade_aggregate set grade_count = grade_count - 1, "
+                        + "grade_sum = case when grade_count = 1 then 0 else grade_sum - ? end, "
+                        + "min_grade = case when min_grade < ? then min_grade else (select min(grade) " + remaining + ") end, "
+                        + "max_grade = case when max_grade > ? then max_grade else (select max(grade) " + remaining + ") end "
+                        + "where student_id = ? and subject = ? and grade_count > 0",
+                grade, grade, studentId, gradeType, gradeId, grade, studentId, gradeType, gradeId, studentId, gradeType);
+    }
+
+    // serialises the creation of a student's first aggregate rows
+    public void lockStudent(int studentId) {
+        jdbcTemplate.queryForList("select id from student where id = ? for update", Integer.class, studentId);
+    }
+
+    // grades of students that no longer exist, e.g. written on one node while another deleted the student; every
+    // grade has an aggregate row, so the small aggregate table finds them without scanning the grades
+    public int deleteOrphanedGrades() {
+        List<Integer> orphans = jdbcTemplate.queryForList("select distinct student_id from grade_aggregate a "
+                + "where not exists (select 1 from student s where s.id = a.student_id)", Integer.class);
+        for (int from = 0; from < orphans.size(); from += ORPHAN_CHUNK_SIZE) {
+            List<Integer> chunk = orphans.subList(from, Math.min(from + ORPHAN_CHUNK_SIZE, orphans.size()));
+            String in = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.update("delete from grade where student_id in (" + in + ")", chunk.toArray());
+            jdbcTemplate.update("delete from grade_aggregate where student_id in (" + in + ")", chunk.toArray());
+        }
+        return orphans.size();
+    }
+
+    public Map<Integer, GradeAggregate> computeAggregates(String gradeType) {
+        Map<Integer, GradeAggregate> aggregates = new HashMap<>();
+        jdbcTemplate.query("select student_id, count(*), sum(grade), min(grade), max(grade) from grade "
+                + "where subject = ? group by student_id", rs -> {
+            aggregates.put(rs.getInt(1), new GradeAggregate(rs.getInt(1), gradeType, rs.getInt(2), rs.getDouble(3),
+                    rs.getDouble(4), rs.getDouble(5)));
+        }, checkGradeType(gradeType));
+        return aggregates;
+    }
+
+    public void rebuildAggregates() {
+        jdbcTemplate.update("delete from grade_aggregate");
+        jdbcTemplate.update("insert into grade_aggregate(student_id, subject, grade_count, grade_sum, min_grade, max_grade) "
+                + "select student_id, subject, count(*), sum(grade), min(grade), max(grade) from grade group by student_id, subject");
+    }
+
+    // one subject for a page of students, in id order; served by idx_grade_student_subject
+    public Map<Integer, List<Grade>> findGrades(String gradeType, Collection<Integer> studentIds) {
+        String subject = checkGradeType(gradeType);
+        Map<Integer, List<Grade>> grades = new HashMap<>();
+        if (studentIds.isEmpty()) {
+            return grades;
+        }
+        List<Object> args = new ArrayList<>(studentIds.size() + 1);
+        args.add(subject);
+        args.addAll(studentIds);
+        jdbcTemplate.query("select id, student_id, grade from grade where subject = ? and student_id in ("
+                + String.join(",", Collections.nCopies(studentIds.size(), "?")) + ") order by id", rs -> {
+            grades.computeIfAbsent(rs.getInt(2), studentId -> new ArrayList<>()).add(toGrade(subject, rs.getInt(1), rs.getInt(2), rs.getDouble(3)));
+        }, args.toArray());
+        return grades;
+    }
+
+    // one page of a single student's grades for a subject, in id order
+    public List<Grade> findGrades(String gradeType, int studentId, int offset, int limit) {
+        String subject = checkGradeType(gradeType);
+        return jdbcTemplate.query("select id, grade from grade where student_id = ? and subject = ? order by id limit ? offset ?",
+                (rs, rowNum) -> toGrade(subject, rs.getInt(1), studentId, rs.getDouble(2)), studentId, subject, limit, offset);
+    }
+
+    // single forward-only scan of (subject, student_id, grade) in id order, so every scan sees the rows in the same order
+    public void scanGrades(RowCallbackHandler handler) {
+        JdbcTemplate scanTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        scanTemplate.setFetchSize(scanFetchSize);
+        scanTemplate.query("select subject, student_id, grade from grade order by id", handler);
+    }
+
+    // every student's id, names and email in id order
+    public void scanStudents(RowCallbackHandler handler) {
+        JdbcTemplate scanTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        scanTemplate.setFetchSize(scanFetchSize);
+        scanTemplate.query("select id, first_name, last_name, email_address from student order by id", handler);
+    }
+
+    // every student with its grades (subject/grade null when it has none), grouped by student and in id order
+    public void scanGradebook(RowCallbackHandler handler) {
+        JdbcTemplate scanTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        scanTemplate.setFetchSize(scanFetchSize);
+        scanTemplate.query("select s.id, s.first_name, s.last_name, s.email_address, g.subject, g.grade "
+                + "from student s left join grade g on g.student_id = s.id order by s.id, g.id", handler);
+    }
+
+    private static Grade toGrade(String subject, int id, int studentId, double grade) {
+        SubjectGrade subjectGrade = SubjectGrade.of(subject, grade);
+        subjectGrade.setId(id);
+        subjectGrade.setStudentId(studentId);
+        return subjectGrade;
+    }
+
+    private static int sumUpdateCounts(int[][] counts) {
+        int updated = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // drivers may report SUCCESS_NO_INFO (-2) for batched statements
+                updated += count < 0 ? 1 : count;
+            }
+        }
+        return updated;
+    }
+
+    private static String checkGradeType(String gradeType) {
+        if (!SubjectGrade.SUBJECTS.contains(gradeType)) {
+            throw new IllegalArgumentException("Unknown grade type: " + gradeType);
+        }
+        return gradeType;
+    }
+}
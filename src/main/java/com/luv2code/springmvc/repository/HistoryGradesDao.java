@@ -1,11 +1,16 @@
 package com.luv2code.springmvc.repository;
 
 import com.luv2code.springmvc.models.HistoryGrade;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface HistoryGradesDao extends CrudRepository<HistoryGrade, Integer> {
 
         public Iterable<HistoryGrade> findHistoryGradeByStudentId(int id);
 
-        public void deleteByStudentId(int studentId);
+        @Modifying
+        @Query("delete from HistoryGrade g where g.studentId = :studentId")
+        public int deleteByStudentId(@Param("studentId") int studentId);
 }
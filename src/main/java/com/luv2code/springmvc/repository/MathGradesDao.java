@@ -1,11 +1,16 @@
 package com.luv2code.springmvc.repository;
 
 import com.luv2code.springmvc.models.MathGrade;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface MathGradesDao extends CrudRepository<MathGrade, Integer> {
 
     public Iterable<MathGrade> findMathGradeByStudentId(int id);
 
-    public void deleteByStudentId(int studentId);
+    @Modifying
+    @Query("delete from MathGrade g where g.studentId = :studentId")
+    public int deleteByStudentId(@Param("studentId") int studentId);
 }
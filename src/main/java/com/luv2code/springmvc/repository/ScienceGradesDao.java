@@ -1,11 +1,16 @@
 package com.luv2code.springmvc.repository;
 
 import com.luv2code.springmvc.models.ScienceGrade;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface ScienceGradesDao extends CrudRepository<ScienceGrade, Integer> {
 
     public Iterable<ScienceGrade> findScienceGradeByStudentId(int id);
 
-    void deleteByStudentId(int studentId);
+    @Modifying
+    @Query("delete from ScienceGrade g where g.studentId = :studentId")
+    int deleteByStudentId(@Param("studentId") int studentId);
 }
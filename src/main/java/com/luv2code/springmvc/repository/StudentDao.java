@@ -1,11 +1,34 @@
 package com.luv2code.springmvc.repository;
 
 import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.StudentSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface StudentDao extends CrudRepository<CollegeStudent, Integer> {
     <Optional>CollegeStudent findByEmailAddress(String emailAddress);
 
+    boolean existsByEmailAddress(String emailAddress);
+
+    // keyset pagination: seek past the last id of the previous page instead of using an offset
+    List<StudentSummary> findSummariesByIdGreaterThanOrderByIdAsc(int id, Pageable pageable);
+
+    Optional<StudentSummary> findSummaryById(int id);
+
+    @Query("select s.id from CollegeStudent s where s.id in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    @Modifying
+    @Query("delete from CollegeStudent s where s.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
+
 }
@@ -0,0 +1,47 @@
+package com.luv2code.springmvc.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// applies in-memory index updates only once the surrounding transaction commits, or right away outside one
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    // completion runs once the transaction has ended either way, after the update when it committed
+    static void run(Runnable update, Runnable completion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                update.run();
+            } finally {
+                completion.run();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                completion.run();
+            }
+        });
+    }
+}
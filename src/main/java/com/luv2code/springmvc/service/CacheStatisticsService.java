@@ -0,0 +1,33 @@
+package com.luv2code.springmvc.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Service
+public class CacheStatisticsService {
+
+    @Autowired
+    private CaffeineCacheManager caffeineCacheManager;
+
+    public Map<String, Map<String, Object>> getCacheStatistics() {
+        Map<String, Map<String, Object>> statistics = new LinkedHashMap<>();
+        for (String cacheName : caffeineCacheManager.getCacheNames()) {
+            CaffeineCache cache = (CaffeineCache) caffeineCacheManager.getCache(cacheName);
+            CacheStats stats = cache.getNativeCache().stats();
+            Map<String, Object> cacheStatistics = new LinkedHashMap<>();
+            cacheStatistics.put("size", cache.getNativeCache().estimatedSize());
+            cacheStatistics.put("hits", stats.hitCount());
+            cacheStatistics.put("misses", stats.missCount());
+            cacheStatistics.put("hitRate", stats.hitRate());
+            cacheStatistics.put("evictions", stats.evictionCount());
+            statistics.put(cacheName, cacheStatistics);
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,306 @@
+package com.luv2code.springmvc.service;
+
+import com.luv2code.springmvc.models.CohortStatistics;
+import com.luv2code.springmvc.models.GradeColumn;
+import com.luv2code.springmvc.models.StudentAverage;
+import com.luv2code.springmvc.models.SubjectGrade;
+import com.luv2code.springmvc.models.SubjectStatistics;
+import com.luv2code.springmvc.repository.GradeJdbcDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Class-wide statistics over every grade. The grades are split into fixed-size chunks that are summarised in
+ * parallel and then merged strictly in chunk order, so the floating point results are the same for any
+ * parallelism. The per-student totals, the bulk of the merge, are split by student id into partitions that are
+ * merged (each still in chunk order) and ranked in parallel.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CohortAnalyticsService {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final int HISTOGRAM_BUCKETS = 10;
+
+    private static final int STUDENT_PARTITIONS = 64;
+
+    // best average first, lower student id wins a tie
+    private static final Comparator<StudentAverage> RANKING = Comparator
+            .comparingDouble(StudentAverage::getAverage).reversed()
+            .thenComparingInt(StudentAverage::getStudentId);
+
+    @Autowired
+    private GradeJdbcDao gradeJdbcDao;
+
+    @Value("${gradebook.analytics.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void startPool() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void stopPool() {
+        pool.shutdown();
+    }
+
+    public CohortStatistics getCohortStatistics(int topN) {
+        return getCohortStatistics(topN, pool);
+    }
+
+    public CohortStatistics getCohortStatistics(int topN, ForkJoinPool forkJoinPool) {
+        Map<String, SubjectStatistics> subjects = new LinkedHashMap<>();
+        Map<String, GradeRows> rowsBySubject = new HashMap<>();
+        for (String gradeType : SubjectGrade.SUBJECTS) {
+            rowsBySubject.put(gradeType, new GradeRows());
+        }
+        gradeJdbcDao.scanGrades(rs -> {
+            GradeRows rows = rowsBySubject.get(rs.getString(1));
+            if (rows != null) {
+                rows.add(rs.getInt(2), rs.getDouble(3));
+            }
+        });
+        GradeRows allRows = new GradeRows();
+        for (String gradeType : SubjectGrade.SUBJECTS) {
+            GradeRows rows = rowsBySubject.get(gradeType);
+            subjects.put(gradeType, summarize(gradeType, rows, topN, forkJoinPool));
+            allRows.addAll(rows);
+        }
+        return new CohortStatistics(subjects, summarize("overall", allRows, topN, forkJoinPool));
+    }
+
+    private SubjectStatistics summarize(String subject, GradeRows rows, int topN, ForkJoinPool forkJoinPool) {
+        int chunks = (rows.size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        Partial[] partials = new Partial[chunks];
+        if (chunks > 0) {
+            forkJoinPool.invoke(new PartialTask(rows, partials, 0, chunks));
+        }
+
+        Partial total = new Partial();
+        for (Partial partial : partials) {
+            total.merge(partial);
+        }
+        List<StudentAverage> topStudents = chunks == 0 || topN <= 0 ? List.of()
+                : forkJoinPool.invoke(new TopStudentsTask(partials, topN, 0, STUDENT_PARTITIONS));
+
+        GradeColumn column = GradeColumn.wrap(rows.grades, rows.size);
+        return new SubjectStatistics(subject, total.count,
+                total.count == 0 ? Double.NaN : total.mean,
+                total.count == 0 ? Double.NaN : total.m2 / total.count,
+                total.count == 0 ? Double.NaN : total.min,
+                total.count == 0 ? Double.NaN : total.max,
+                column.percentile(50), column.percentile(90),
+                total.histogram, topStudents);
+    }
+
+    private static List<StudentAverage> topStudents(Map<Integer, double[]> studentTotals, int topN) {
+        if (topN <= 0) {
+            return List.of();
+        }
+        PriorityQueue<StudentAverage> best = new PriorityQueue<>(Math.min(topN, studentTotals.size()) + 1, RANKING.reversed());
+        for (Map.Entry<Integer, double[]> entry : studentTotals.entrySet()) {
+            double[] totals = entry.getValue();
+            best.add(new StudentAverage(entry.getKey(), (int) totals[1],
+                    GradeColumn.roundToHundredths(totals[0] / totals[1])));
+            if (best.size() > topN) {
+                best.poll();
+            }
+        }
+        List<StudentAverage> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked;
+    }
+
+    private static List<StudentAverage> mergeTop(List<StudentAverage> left, List<StudentAverage> right, int topN) {
+        List<StudentAverage> merged = new ArrayList<>(left.size() + right.size());
+        merged.addAll(left);
+        merged.addAll(right);
+        merged.sort(RANKING);
+        return merged.size() > topN ? new ArrayList<>(merged.subList(0, topN)) : merged;
+    }
+
+    private static int partition(int studentId) {
+        return Math.floorMod(studentId, STUDENT_PARTITIONS);
+    }
+
+    private static class GradeRows {
+
+        private int[] studentIds = new int[1024];
+
+        private double[] grades = new double[1024];
+
+        private int size;
+
+        void add(int studentId, double grade) {
+            if (size == grades.length) {
+                studentIds = Arrays.copyOf(studentIds, size * 2);
+                grades = Arrays.copyOf(grades, size * 2);
+            }
+            studentIds[size] = studentId;
+            grades[size++] = grade;
+        }
+
+        void addAll(GradeRows other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.studentIds[i], other.grades[i]);
+            }
+        }
+    }
+
+    private static class Partial {
+
+        private long count;
+
+        private double mean;
+
+        // sum of squared deviations from the mean
+        private double m2;
+
+        private double min = Double.POSITIVE_INFINITY;
+
+        private double max = Double.NEGATIVE_INFINITY;
+
+        private final int[] histogram = new int[HISTOGRAM_BUCKETS];
+
+        // per student partition: student id -> {sum, count}
+        private final List<Map<Integer, double[]>> studentTotals = new ArrayList<>(STUDENT_PARTITIONS);
+
+        static Partial of(GradeRows rows, int from, int to) {
+            Partial partial = new Partial();
+            for (int p = 0; p < STUDENT_PARTITIONS; p++) {
+                partial.studentTotals.add(new HashMap<>());
+            }
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                double grade = rows.grades[i];
+                sum += grade;
+                partial.min = Math.min(partial.min, grade);
+                partial.max = Math.max(partial.max, grade);
+                int bucket = (int) (grade / (100.0 / HISTOGRAM_BUCKETS));
+                partial.histogram[Math.max(0, Math.min(bucket, HISTOGRAM_BUCKETS - 1))]++;
+                int studentId = rows.studentIds[i];
+                double[] totals = partial.studentTotals.get(partition(studentId)).computeIfAbsent(studentId, id -> new double[2]);
+                totals[0] += grade;
+                totals[1]++;
+            }
+            partial.count = to - from;
+            partial.mean = sum / partial.count;
+            for (int i = from; i < to; i++) {
+                double deviation = rows.grades[i] - partial.mean;
+                partial.m2 += deviation * deviation;
+            }
+            return partial;
+        }
+
+        // Chan et al. pairwise update; callers merge in chunk order. The student totals are merged by TopStudentsTask
+        void merge(Partial other) {
+            if (other.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                mean = other.mean;
+                m2 = other.m2;
+            } else {
+                long combined = count + other.count;
+                double delta = other.mean - mean;
+                mean += delta * other.count / combined;
+                m2 += other.m2 + delta * delta * ((double) count * other.count / combined);
+            }
+            count += other.count;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+                histogram[i] += other.histogram[i];
+            }
+        }
+    }
+
+    // merges the student totals of a range of partitions across all chunks, in chunk order, and ranks them
+    private static class TopStudentsTask extends RecursiveTask<List<StudentAverage>> {
+
+        private final Partial[] partials;
+
+        private final int topN;
+
+        private final int fromPartition;
+
+        private final int toPartition;
+
+        TopStudentsTask(Partial[] partials, int topN, int fromPartition, int toPartition) {
+            this.partials = partials;
+            this.topN = topN;
+            this.fromPartition = fromPartition;
+            this.toPartition = toPartition;
+        }
+
+        @Override
+        protected List<StudentAverage> compute() {
+            if (toPartition - fromPartition == 1) {
+                Map<Integer, double[]> studentTotals = new HashMap<>();
+                for (Partial partial : partials) {
+                    for (Map.Entry<Integer, double[]> entry : partial.studentTotals.get(fromPartition).entrySet()) {
+                        double[] totals = studentTotals.computeIfAbsent(entry.getKey(), id -> new double[2]);
+                        totals[0] += entry.getValue()[0];
+                        totals[1] += entry.getValue()[1];
+                    }
+                }
+                return topStudents(studentTotals, topN);
+            }
+            int middle = (fromPartition + toPartition) >>> 1;
+            TopStudentsTask right = new TopStudentsTask(partials, topN, middle, toPartition);
+            right.fork();
+            List<StudentAverage> left = new TopStudentsTask(partials, topN, fromPartition, middle).compute();
+            return mergeTop(left, right.join(), topN);
+        }
+    }
+
+    private static class PartialTask extends RecursiveAction {
+
+        private final GradeRows rows;
+
+        private final Partial[] partials;
+
+        private final int fromChunk;
+
+        private final int toChunk;
+
+        PartialTask(GradeRows rows, Partial[] partials, int fromChunk, int toChunk) {
+            this.rows = rows;
+            this.partials = partials;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk == 1) {
+                int from = fromChunk * CHUNK_SIZE;
+                partials[fromChunk] = Partial.of(rows, from, Math.min(from + CHUNK_SIZE, rows.size));
+                return;
+            }
+            int middle = (fromChunk + toChunk) >>> 1;
+            invokeAll(new PartialTask(rows, partials, fromChunk, middle),
+                    new PartialTask(rows, partials, middle, toChunk));
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.luv2code.springmvc.service;
+
+import com.luv2code.springmvc.models.GradeColumn;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.OrderStatisticTree;
+import com.luv2code.springmvc.models.StudentAverage;
+import com.luv2code.springmvc.models.StudentRank;
+import com.luv2code.springmvc.models.SubjectGrade;
+import com.luv2code.springmvc.repository.GradeJdbcDao;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/*
+ * GPA rankings per subject and overall, held in memory and updated as grade writes commit. Each ranking is an
+ * OrderStatisticTree keyed by (average rounded to hundredths, descending; student id), the same order as the cohort
+ * statistics' top students, so top-N, rank and percentile are O(log n) instead of a pass over every student.
+ * Writes on other nodes are picked up by the periodic rebuild. A write that is in flight while a rebuild scans may
+ * or may not be in the scan, so its students keep the totals they had, with every local write applied once, and
+ * take the other nodes' writes with the following rebuild.
+ */
+@Service
+public class GpaLeaderboardService {
+
+    private static final Logger log = LoggerFactory.getLogger(GpaLeaderboardService.class);
+
+    public static final String OVERALL = "overall";
+
+    private static final List<String> RANKINGS = Stream.concat(SubjectGrade.SUBJECTS.stream(), Stream.of(OVERALL)).toList();
+
+    private static final int MAX_HUNDREDTHS = 10000;
+
+    @Autowired
+    private GradeJdbcDao gradeJdbcDao;
+
+    // 0 disables the refresh
+    @Value("${gradebook.leaderboard.refresh-interval:5m}")
+    private Duration refreshInterval;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<String, Ranking> rankings = newRankings();
+
+    // student id -> writes registered in a transaction that has not ended yet
+    private final Map<Integer, Integer> pendingWrites = new HashMap<>();
+
+    // non-null while a rebuild scans: the students with a write in flight at some point of the scan
+    private Set<Integer> inFlightDuringRebuild;
+
+    private ScheduledExecutorService refresher;
+
+    public static boolean isRanking(String ranking) {
+        return RANKINGS.contains(ranking);
+    }
+
+    // the first rebuild runs before the web server accepts requests
+    @PostConstruct
+    public void start() {
+        rebuild();
+        if (!refreshInterval.isZero()) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "gpa-leaderboard-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = refreshInterval.toMillis();
+            refresher.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            inFlightDuringRebuild = new HashSet<>(pendingWrites.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<String, Ranking> rebuilt = newRankings();
+        boolean scanned = false;
+        try {
+            gradeJdbcDao.scanGrades(rs -> {
+                Ranking subject = rebuilt.get(rs.getString(1));
+                if (subject != null) {
+                    subject.add(rs.getInt(2), rs.getDouble(3));
+                    rebuilt.get(OVERALL).add(rs.getInt(2), rs.getDouble(3));
+                }
+            });
+            for (Ranking ranking : rebuilt.values()) {
+                ranking.index();
+            }
+            scanned = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (scanned) {
+                    for (Map.Entry<String, Ranking> ranking : rebuilt.entrySet()) {
+                        ranking.getValue().copy(inFlightDuringRebuild, rankings.get(ranking.getKey()));
+                    }
+                    rankings = rebuilt;
+                }
+                inFlightDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // the write methods take effect when the surrounding transaction commits, like the cache evictions
+    public void gradeAdded(int studentId, String subject, double grade) {
+        write(Set.of(studentId), () -> update(studentId, subject, grade, 1));
+    }
+
+    public void gradesAdded(Collection<GradeSubmission> grades) {
+        Set<Integer> studentIds = new HashSet<>();
+        for (GradeSubmission grade : grades) {
+            studentIds.add(grade.getStudentId());
+        }
+        write(studentIds, () -> {
+            for (GradeSubmission grade : grades) {
+                update(grade.getStudentId(), grade.getGradeType(), grade.getGrade(), 1);
+            }
+        });
+    }
+
+    public void gradeRemoved(int studentId, String subject, double grade) {
+        write(Set.of(studentId), () -> update(studentId, subject, grade, -1));
+    }
+
+    public void studentsRemoved(Collection<Integer> studentIds) {
+        write(new HashSet<>(studentIds), () -> {
+            for (Ranking ranking : rankings.values()) {
+                for (Integer studentId : studentIds) {
+                    ranking.remove(studentId);
+                }
+            }
+        });
+    }
+
+    // best average first, lower student id wins a tie
+    public List<StudentAverage> top(String ranking, int limit) {
+        lock.readLock().lock();
+        try {
+            Ranking students = ranking(ranking);
+            int size = Math.min(Math.max(limit, 0), students.tree.size());
+            List<StudentAverage> top = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                long key = students.tree.get(i);
+                int studentId = (int) key;
+                top.add(new StudentAverage(studentId, (int) students.totals.get(studentId)[1], average(key)));
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // null when the student has no grades in the ranking
+    public StudentRank rankOf(String ranking, int studentId) {
+        lock.readLock().lock();
+        try {
+            Ranking students = ranking(ranking);
+            double[] total = students.totals.get(studentId);
+            if (total == null) {
+                return null;
+            }
+            long key = key(studentId, total);
+            int higher = students.tree.countLess(key & 0xFFFFFFFF00000000L);
+            int ranked = students.tree.size();
+            return new StudentRank(studentId, ranking, average(key), higher + 1, ranked,
+                    GradeColumn.roundToHundredths((ranked - higher) * 100.0 / ranked));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // runs under the write lock, against whichever rankings are current
+    private void update(int studentId, String subject, double grade, int sign) {
+        Ranking ranking = rankings.get(subject);
+        if (ranking != null) {
+            ranking.update(studentId, grade, sign);
+            rankings.get(OVERALL).update(studentId, grade, sign);
+        }
+    }
+
+    // the students count as in flight from now until the transaction ends, so a rebuild meanwhile keeps their totals
+    private void write(Set<Integer> studentIds, Runnable change) {
+        lock.writeLock().lock();
+        try {
+            for (Integer studentId : studentIds) {
+                pendingWrites.merge(studentId, 1, Integer::sum);
+            }
+            if (inFlightDuringRebuild != null) {
+                inFlightDuringRebuild.addAll(studentIds);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        AfterCommit.run(() -> apply(change), () -> completed(studentIds));
+    }
+
+    private void completed(Set<Integer> studentIds) {
+        lock.writeLock().lock();
+        try {
+            for (Integer studentId : studentIds) {
+                pendingWrites.computeIfPresent(studentId, (id, writes) -> writes == 1 ? null : writes - 1);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("GPA leaderboard refresh failed, keeping the previous rankings", e);
+        }
+    }
+
+    private Ranking ranking(String ranking) {
+        Ranking students = rankings.get(ranking);
+        if (students == null) {
+            throw new IllegalArgumentException("Unknown ranking: " + ranking);
+        }
+        return students;
+    }
+
+    private static Map<String, Ranking> newRankings() {
+        Map<String, Ranking> rankings = new HashMap<>();
+        for (String ranking : RANKINGS) {
+            rankings.put(ranking, new Ranking());
+        }
+        return rankings;
+    }
+
+    // high 32 bits: hundredths below a perfect 100, so better averages sort first; low 32 bits: student id
+    private static long key(int studentId, double[] total) {
+        int hundredths = (int) Math.round(GradeColumn.roundToHundredths(total[0] / total[1]) * 100);
+        hundredths = Math.max(0, Math.min(hundredths, MAX_HUNDREDTHS));
+        return ((long) (MAX_HUNDREDTHS - hundredths) << 32) | studentId;
+    }
+
+    private static double average(long key) {
+        return (MAX_HUNDREDTHS - (int) (key >>> 32)) / 100.0;
+    }
+
+    private static class Ranking {
+        private final OrderStatisticTree tree = new OrderStatisticTree();
+        // student id -> {sum, count}
+        private final Map<Integer, double[]> totals = new HashMap<>();
+
+        // bulk load: totals first, then index() builds the tree once
+        void add(int studentId, double grade) {
+            double[] total = totals.computeIfAbsent(studentId, id -> new double[2]);
+            total[0] += grade;
+            total[1]++;
+        }
+
+        void index() {
+            for (Map.Entry<Integer, double[]> entry : totals.entrySet()) {
+                tree.add(key(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        void update(int studentId, double grade, int sign) {
+            double[] total = totals.get(studentId);
+            if (total == null) {
+                if (sign < 0) {
+                    return;
+                }
+                total = new double[2];
+                totals.put(studentId, total);
+            } else {
+                tree.remove(key(studentId, total));
+            }
+            total[0] += sign * grade;
+            total[1] += sign;
+            if (total[1] <= 0) {
+                totals.remove(studentId);
+                return;
+            }
+            tree.add(key(studentId, total));
+        }
+
+        void remove(int studentId) {
+            double[] total = totals.remove(studentId);
+            if (total != null) {
+                tree.remove(key(studentId, total));
+            }
+        }
+
+        // replaces the students' totals with the ones in the other ranking
+        void copy(Collection<Integer> studentIds, Ranking from) {
+            for (Integer studentId : studentIds) {
+                remove(studentId);
+                double[] total = from.totals.get(studentId);
+                if (total != null) {
+                    totals.put(studentId, total.clone());
+                    tree.add(key(studentId, total));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.luv2code.springmvc.service;
+
+public class GradeQueueFullException extends RuntimeException {
+
+    public GradeQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,269 @@
+package com.luv2code.springmvc.service;
+
+import com.luv2code.springmvc.models.GradeSubmission;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Optional write-behind for single grade submissions: validated grades are queued and one background writer
+ * commits them in batches through createGrades. Every accepted grade gets a sequence number in queue order;
+ * the writer publishes the last committed one, so a reader can wait until a student's own submissions are in.
+ * A batch that fails is retried until it commits; its grades keep their capacity slots meanwhile, so while the
+ * database is down the queue fills up and new submissions are refused instead of accepted and lost.
+ */
+@Service
+@ConditionalOnProperty(name = "gradebook.write-behind.enabled", havingValue = "true")
+public class GradeWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(GradeWriteBehindService.class);
+
+    @Autowired
+    private StudentAndGradeService studentAndGradeService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gradebook.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${gradebook.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${gradebook.write-behind.offer-timeout:100ms}")
+    private Duration offerTimeout;
+
+    @Value("${gradebook.write-behind.read-timeout:5s}")
+    private Duration readTimeout;
+
+    @Value("${gradebook.write-behind.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+
+    @Value("${gradebook.write-behind.max-retry-backoff:5s}")
+    private Duration maxRetryBackoff;
+
+    private BlockingQueue<PendingGrade> queue;
+
+    // one permit per grade that is queued or being written; released only once its batch has committed
+    private Semaphore slots;
+
+    // sequence assignment and enqueueing happen under one lock so queue order is sequence order
+    private final ReentrantLock enqueueLock = new ReentrantLock();
+
+    private long lastSequence;
+
+    // written under enqueueLock, read without it by the writer
+    private volatile boolean accepting;
+
+    // student id -> sequence of their latest grade that is not committed yet
+    private final Map<Integer, Long> pendingByStudent = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final Condition flushed = flushLock.newCondition();
+
+    private volatile long flushedSequence;
+
+    // set when shutdown gives up on a writer that cannot commit
+    private volatile boolean abandoned;
+
+    private Thread writer;
+
+    private Counter rejected;
+
+    private Counter retried;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        slots = new Semaphore(capacity);
+        Gauge.builder("gradebook.write-behind.queue", queue, BlockingQueue::size).register(meterRegistry);
+        rejected = meterRegistry.counter("gradebook.write-behind.rejected");
+        retried = meterRegistry.counter("gradebook.write-behind.retried");
+        accepting = true;
+        writer = new Thread(this::drainQueue, "grade-write-behind");
+        writer.start();
+    }
+
+    // false for grades createGrade would reject; GradeQueueFullException when the queue stays full (backpressure)
+    public boolean submit(double grade, int studentId, String gradeType) {
+        if (!StudentAndGradeService.isValidGrade(grade, gradeType) || !studentAndGradeService.checkIfStudentIsNull(studentId)) {
+            return false;
+        }
+        if (!accepting) {
+            throw new GradeQueueFullException("Grade queue is shut down");
+        }
+        // wait for capacity outside the lock, so one full queue does not serialise every submitter behind it
+        try {
+            if (!slots.tryAcquire(offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new GradeQueueFullException("Grade queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GradeQueueFullException("Interrupted while waiting for the grade queue");
+        }
+        enqueueLock.lock();
+        try {
+            if (!accepting) {
+                slots.release();
+                throw new GradeQueueFullException("Grade queue is shut down");
+            }
+            long sequence = ++lastSequence;
+            pendingByStudent.put(studentId, sequence);
+            // cannot fail: the slot guarantees room
+            queue.add(new PendingGrade(sequence, new GradeSubmission(studentId, gradeType, grade)));
+            return true;
+        } finally {
+            enqueueLock.unlock();
+        }
+    }
+
+    // read-your-writes: returns once every grade already accepted for the student is committed, or false on timeout.
+    // The report card and aggregate caches are filled from the primary, so a read after this sees those grades.
+    public boolean awaitFlushed(int studentId) {
+        Long sequence = pendingByStudent.get(studentId);
+        if (sequence == null || flushedSequence >= sequence) {
+            return true;
+        }
+        long remaining = readTimeout.toNanos();
+        flushLock.lock();
+        try {
+            while (flushedSequence < sequence) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = flushed.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    // stops accepting grades and waits for the writer to commit everything already queued
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        enqueueLock.lock();
+        try {
+            accepting = false;
+        } finally {
+            enqueueLock.unlock();
+        }
+        writer.join(shutdownTimeout.toMillis());
+        if (writer.isAlive()) {
+            abandoned = true;
+            writer.interrupt();
+            writer.join(maxRetryBackoff.toMillis());
+            log.error("Grade write-behind did not drain within {}; {} grades were not written",
+                    shutdownTimeout, capacity - slots.availablePermits());
+        }
+    }
+
+    private void drainQueue() {
+        List<PendingGrade> batch = new ArrayList<>(batchSize);
+        while (true) {
+            PendingGrade first;
+            try {
+                first = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // only shutdown() may end the writer, and it waits for the queue to drain
+                continue;
+            }
+            if (first == null) {
+                if (!accepting && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            if (!flush(batch)) {
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    // retries until the batch commits; false only when shutdown abandoned it
+    private boolean flush(List<PendingGrade> batch) {
+        List<GradeSubmission> submissions = new ArrayList<>(batch.size());
+        for (PendingGrade pending : batch) {
+            submissions.add(pending.submission);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                studentAndGradeService.createGrades(submissions);
+                break;
+            } catch (RuntimeException e) {
+                log.warn("Writing {} queued grades failed (attempt {}), retrying", submissions.size(), attempt, e);
+                retried.increment();
+                if (!sleepBeforeRetry(attempt)) {
+                    return false;
+                }
+            }
+        }
+
+        flushLock.lock();
+        try {
+            flushedSequence = batch.get(batch.size() - 1).sequence;
+            flushed.signalAll();
+        } finally {
+            flushLock.unlock();
+        }
+        // only after publishing the flushed sequence, so awaitFlushed never misses a pending grade
+        for (PendingGrade pending : batch) {
+            pendingByStudent.remove(pending.submission.getStudentId(), pending.sequence);
+        }
+        slots.release(batch.size());
+        return true;
+    }
+
+    // linear backoff capped at max-retry-backoff; false once shutdown has abandoned the writer
+    private boolean sleepBeforeRetry(int attempt) {
+        long backoff = Math.min(100L * attempt, maxRetryBackoff.toMillis());
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            // only shutdown() interrupts the writer for good
+        }
+        return !abandoned;
+    }
+
+    private static class PendingGrade {
+        private final long sequence;
+        private final GradeSubmission submission;
+
+        PendingGrade(long sequence, GradeSubmission submission) {
+            this.sequence = sequence;
+            this.submission = submission;
+        }
+    }
+}
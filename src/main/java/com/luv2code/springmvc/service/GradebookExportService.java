@@ -0,0 +1,227 @@
+package com.luv2code.springmvc.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luv2code.springmvc.models.GradeColumn;
+import com.luv2code.springmvc.models.SubjectGrade;
+import com.luv2code.springmvc.repository.GradeJdbcDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// writes one line per student while the cursor advances, so memory is bounded by a single student's grades
+@Service
+public class GradebookExportService {
+
+    public static final String CSV = "csv";
+
+    public static final String NDJSON = "ndjson";
+
+    private static final List<String> SUBJECTS = SubjectGrade.SUBJECTS;
+
+    @Autowired
+    private GradeJdbcDao gradeJdbcDao;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    public static boolean isSupportedFormat(String format) {
+        return CSV.equals(format) || NDJSON.equals(format);
+    }
+
+    public void export(String format, OutputStream out) throws IOException {
+        if (!isSupportedFormat(format)) {
+            throw new IllegalArgumentException("Unknown export format: " + format);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        StudentLineWriter lineWriter = CSV.equals(format) ? new CsvLineWriter(writer) : new NdjsonLineWriter(writer, objectMapper);
+        StudentRow current = new StudentRow();
+
+        // read-only so the scan can run on a replica
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        try {
+            transactionTemplate.executeWithoutResult(status -> gradeJdbcDao.scanGradebook(rs -> {
+                int studentId = rs.getInt(1);
+                if (!current.present || studentId != current.id) {
+                    current.writeTo(lineWriter);
+                    current.reset(rs);
+                }
+                String subject = rs.getString(5);
+                if (subject != null) {
+                    current.add(subject, rs.getDouble(6));
+                }
+            }));
+            current.writeTo(lineWriter);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        lineWriter.finish();
+        writer.flush();
+    }
+
+    private static class StudentRow {
+        private boolean present;
+        private int id;
+        private String firstName;
+        private String lastName;
+        private String emailAddress;
+        // reused for every student
+        private final GradeColumn[] grades = {new GradeColumn(), new GradeColumn(), new GradeColumn()};
+
+        void reset(ResultSet rs) throws SQLException {
+            present = true;
+            id = rs.getInt(1);
+            firstName = rs.getString(2);
+            lastName = rs.getString(3);
+            emailAddress = rs.getString(4);
+            for (GradeColumn column : grades) {
+                column.clear();
+            }
+        }
+
+        void add(String subject, double grade) {
+            for (int i = 0; i < SUBJECTS.size(); i++) {
+                if (SUBJECTS.get(i).equals(subject)) {
+                    grades[i].add(grade);
+                    return;
+                }
+            }
+        }
+
+        void writeTo(StudentLineWriter lineWriter) {
+            if (!present) {
+                return;
+            }
+            try {
+                lineWriter.write(this);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private interface StudentLineWriter {
+        void write(StudentRow student) throws IOException;
+
+        default void finish() throws IOException {
+        }
+    }
+
+    // id,first_name,last_name,email_address,<subject>_grades...,<subject>_gpa...; grades are ';'-separated
+    private static class CsvLineWriter implements StudentLineWriter {
+        private final Writer writer;
+
+        CsvLineWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write("id,first_name,last_name,email_address");
+            for (String subject : SUBJECTS) {
+                writer.write("," + subject + "_grades");
+            }
+            for (String subject : SUBJECTS) {
+                writer.write("," + subject + "_gpa");
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(StudentRow student) throws IOException {
+            writer.write(Integer.toString(student.id));
+            writer.write(',');
+            writeField(student.firstName);
+            writer.write(',');
+            writeField(student.lastName);
+            writer.write(',');
+            writeField(student.emailAddress);
+            for (GradeColumn column : student.grades) {
+                writer.write(',');
+                for (int i = 0; i < column.size(); i++) {
+                    if (i > 0) {
+                        writer.write(';');
+                    }
+                    writer.write(Double.toString(column.get(i)));
+                }
+            }
+            for (GradeColumn column : student.grades) {
+                writer.write(',');
+                if (column.size() > 0) {
+                    writer.write(Double.toString(GradeColumn.roundToHundredths(column.mean())));
+                }
+            }
+            writer.write('\n');
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static class NdjsonLineWriter implements StudentLineWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        NdjsonLineWriter(Writer writer, ObjectMapper objectMapper) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            // the generator must neither close nor flush the response stream; the buffered writer decides when to flush
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            // lines are separated by '\n' below rather than the default root separator
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(StudentRow student) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", student.id);
+            generator.writeStringField("firstName", student.firstName);
+            generator.writeStringField("lastName", student.lastName);
+            generator.writeStringField("emailAddress", student.emailAddress);
+            for (int s = 0; s < SUBJECTS.size(); s++) {
+                GradeColumn column = student.grades[s];
+                generator.writeArrayFieldStart(SUBJECTS.get(s) + "Grades");
+                for (int i = 0; i < column.size(); i++) {
+                    generator.writeNumber(column.get(i));
+                }
+                generator.writeEndArray();
+                if (column.size() > 0) {
+                    generator.writeNumberField(SUBJECTS.get(s) + "Gpa", GradeColumn.roundToHundredths(column.mean()));
+                } else {
+                    generator.writeNullField(SUBJECTS.get(s) + "Gpa");
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
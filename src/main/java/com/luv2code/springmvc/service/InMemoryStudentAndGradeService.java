@@ -0,0 +1,542 @@
+package com.luv2code.springmvc.service;
+
+import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradeAggregate;
+import com.luv2code.springmvc.models.GradeEvent;
+import com.luv2code.springmvc.models.GradeIngestResult;
+import com.luv2code.springmvc.models.GradePage;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.Gradebook;
+import com.luv2code.springmvc.models.GradebookCollegeStudent;
+import com.luv2code.springmvc.models.GradebookPage;
+import com.luv2code.springmvc.models.HistoryGrade;
+import com.luv2code.springmvc.models.MathGrade;
+import com.luv2code.springmvc.models.ScienceGrade;
+import com.luv2code.springmvc.models.StudentGrades;
+import com.luv2code.springmvc.models.StudentSummary;
+import com.luv2code.springmvc.models.SubjectGrade;
+import com.luv2code.springmvc.repository.GradeEventLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Alternative storage engine behind the StudentAndGradeService API: the whole gradebook lives in memory and every
+ * create/delete is appended to a GradeEventLog before it is applied and acknowledged. Startup replays the newest
+ * snapshot plus the log tail. Reads never touch the database; cohort analytics and the export still scan the JPA
+ * tables, so they do not see this store.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "gradebook.storage", havingValue = "event-log")
+@Transactional(propagation = Propagation.SUPPORTS)
+public class InMemoryStudentAndGradeService extends StudentAndGradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryStudentAndGradeService.class);
+
+    @Value("${gradebook.event-log.directory:data/event-log}")
+    private Path directory;
+
+    @Value("${gradebook.event-log.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${gradebook.event-log.snapshot-every:100000}")
+    private int snapshotEvery;
+
+    @Value("${gradebook.event-log.fsync:false}")
+    private boolean fsync;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final NavigableMap<Integer, StoredStudent> students = new TreeMap<>();
+
+    private final Map<Integer, SubjectGrade> grades = new HashMap<>();
+
+    private final Map<String, Integer> studentIdsByEmail = new HashMap<>();
+
+    private int nextStudentId = 1;
+
+    private int nextGradeId = 1;
+
+    private GradeEventLog eventLog;
+
+    private int snapshotInterval;
+
+    // snapshots are serialised and fsynced here, off the write lock; at most one is in flight
+    private ExecutorService snapshotWriter;
+
+    private volatile Future<?> pendingSnapshot;
+
+    @PostConstruct
+    public void open() throws IOException {
+        open(directory, (int) segmentSize.toBytes(), snapshotEvery, fsync);
+    }
+
+    public void open(Path directory, int segmentSize, int snapshotEvery, boolean fsync) throws IOException {
+        lock.writeLock().lock();
+        try {
+            snapshotInterval = snapshotEvery;
+            snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "gradebook-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            eventLog = new GradeEventLog(directory, segmentSize, fsync);
+            GradeEventLog.SnapshotHeader header = eventLog.recover(this::apply);
+            nextStudentId = Math.max(nextStudentId, header.getNextStudentId());
+            nextGradeId = Math.max(nextGradeId, header.getNextGradeId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            awaitSnapshot();
+            snapshotWriter.shutdown();
+            eventLog.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // waits for a snapshot that is being written in the background
+    public void awaitSnapshot() {
+        if (pendingSnapshot == null) {
+            return;
+        }
+        try {
+            pendingSnapshot.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public CollegeStudent createStudent(String firstName, String lastName, String email) {
+        lock.writeLock().lock();
+        try {
+            if (email != null && studentIdsByEmail.containsKey(email)) {
+                throw new DataIntegrityViolationException("Duplicate email address: " + email);
+            }
+            GradeEvent event = GradeEvent.studentCreated(nextStudentId, firstName, lastName, email);
+            write(List.of(event));
+            return copy(students.get(event.getStudentId()).student);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean checkIfStudentIsNull(int id) {
+        lock.readLock().lock();
+        try {
+            return students.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmailTaken(String emailAddress) {
+        if (emailAddress == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return studentIdsByEmail.containsKey(emailAddress);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int deleteStudents(Collection<Integer> ids) {
+        List<GradeEvent> events = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            Set<Integer> deleted = new HashSet<>();
+            for (Integer id : ids) {
+                if (students.containsKey(id) && deleted.add(id)) {
+                    events.add(GradeEvent.studentDeleted(id));
+                }
+            }
+            write(events);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (GradeEvent event : events) {
+            evictStudentGrades(event.getStudentId());
+        }
+        if (!events.isEmpty()) {
+            evictGradebookPages();
+        }
+        return events.size();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Iterable<CollegeStudent> getGradeBook() {
+        lock.readLock().lock();
+        try {
+            List<CollegeStudent> all = new ArrayList<>(students.size());
+            for (StoredStudent stored : students.values()) {
+                all.add(copy(stored.student));
+            }
+            return all;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public GradebookPage getGradeBook(int after, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        lock.readLock().lock();
+        try {
+            List<StudentSummary> page = new ArrayList<>(size);
+            boolean hasNext = false;
+            for (StoredStudent stored : students.tailMap(after, false).values()) {
+                if (page.size() == size) {
+                    hasNext = true;
+                    break;
+                }
+                CollegeStudent student = stored.student;
+                page.add(StudentSummary.of(student.getId(), student.getFirstName(), student.getLastName(), student.getEmailAddress()));
+            }
+            int nextCursor = hasNext ? page.get(size - 1).getId() : 0;
+            return new GradebookPage(page, after, size, nextCursor, hasNext);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public GradebookCollegeStudent studentInformation(int id) {
+        lock.readLock().lock();
+        try {
+            StoredStudent stored = students.get(id);
+            return stored == null ? null : reportCard(stored);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public GradePage getGradeResults(int studentId, String subject, int offset, int pageSize) {
+        GradebookCollegeStudent reportCard = studentInformation(studentId);
+        return reportCard == null ? null : gradePage(reportCard, subject, offset, pageSize);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Gradebook getReportCards(int after, int pageSize) {
+        return getReportCards(getGradeBook(after, pageSize).getStudents());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Gradebook getReportCards(List<? extends StudentSummary> requested) {
+        List<GradebookCollegeStudent> reportCards = new ArrayList<>(requested.size());
+        lock.readLock().lock();
+        try {
+            for (StudentSummary student : requested) {
+                StoredStudent stored = students.get(student.getId());
+                if (stored != null) {
+                    reportCards.add(reportCard(stored));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Gradebook(reportCards);
+    }
+
+    @Override
+    public SubjectGrade addGrade(double grade, int id, String gradeType) {
+        if (!isValidGrade(grade, gradeType)) {
+            return null;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!students.containsKey(id)) {
+                return null;
+            }
+            GradeEvent event = GradeEvent.gradeCreated(nextGradeId, id, gradeType, grade);
+            write(List.of(event));
+            return copy(grades.get(event.getGradeId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Optional<SubjectGrade> findGrade(int id) {
+        lock.readLock().lock();
+        try {
+            SubjectGrade grade = grades.get(id);
+            return grade == null ? Optional.empty() : Optional.of(copy(grade));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // one log sync for the whole batch
+    @Override
+    public GradeIngestResult createGrades(Iterable<GradeSubmission> submissions) {
+        int submitted = 0;
+        List<GradeEvent> events = new ArrayList<>();
+        Set<Integer> studentIds = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            int gradeId = nextGradeId;
+            for (GradeSubmission submission : submissions) {
+                submitted++;
+                if (students.containsKey(submission.getStudentId())
+                        && isValidGrade(submission.getGrade(), submission.getGradeType())) {
+                    events.add(GradeEvent.gradeCreated(gradeId++, submission.getStudentId(),
+                            submission.getGradeType(), submission.getGrade()));
+                    studentIds.add(submission.getStudentId());
+                }
+            }
+            write(events);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Integer studentId : studentIds) {
+            evictStudentGrades(studentId);
+        }
+        return new GradeIngestResult(submitted, events.size());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Map<String, GradeAggregate> getGradeAggregates(int studentId) {
+        Map<String, GradeAggregate> aggregates = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            StoredStudent stored = students.get(studentId);
+            if (stored == null) {
+                return aggregates;
+            }
+            for (SubjectGrade grade : stored.grades) {
+                GradeAggregate aggregate = aggregates.computeIfAbsent(grade.getSubject(),
+                        subject -> new GradeAggregate(studentId, subject, 0, 0, grade.getGrade(), grade.getGrade()));
+                aggregate.setGradeCount(aggregate.getGradeCount() + 1);
+                aggregate.setGradeSum(aggregate.getGradeSum() + grade.getGrade());
+                aggregate.setMinGrade(Math.min(aggregate.getMinGrade(), grade.getGrade()));
+                aggregate.setMaxGrade(Math.max(aggregate.getMaxGrade(), grade.getGrade()));
+            }
+            return aggregates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // aggregates are computed from the grades on every read, so they cannot drift
+    @Override
+    public int checkGradeAggregates(boolean rebuild) {
+        return 0;
+    }
+
+    @Override
+    public int deleteGrade(int id, String gradeType) {
+        int studentId;
+        lock.writeLock().lock();
+        try {
+            SubjectGrade grade = grades.get(id);
+            if (grade == null || !grade.getSubject().equals(gradeType)) {
+                return 0;
+            }
+            studentId = grade.getStudentId();
+            write(List.of(GradeEvent.gradeDeleted(id, studentId)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        evictStudentGrades(studentId);
+        return studentId;
+    }
+
+    // log first, then apply: an event is visible only once it would also be replayed after a crash
+    private void write(List<GradeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            for (GradeEvent event : events) {
+                eventLog.append(event);
+            }
+            eventLog.sync();
+            for (GradeEvent event : events) {
+                apply(event);
+            }
+            if (eventLog.getEventsSinceSnapshot() >= snapshotInterval) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the gradebook event log", e);
+        }
+    }
+
+    // copies the state under the write lock and leaves serialising and fsyncing it to the snapshot writer
+    private void snapshot() throws IOException {
+        awaitSnapshot();
+        long generation = eventLog.startSnapshot();
+        GradeEventLog.SnapshotHeader header = new GradeEventLog.SnapshotHeader(nextStudentId, nextGradeId);
+        List<GradeEvent> state = currentState();
+        pendingSnapshot = snapshotWriter.submit(() -> {
+            try {
+                eventLog.writeSnapshot(generation, header, state);
+            } catch (IOException | RuntimeException e) {
+                // the logs since the previous snapshot are kept, so nothing is lost; the next snapshot tries again
+                log.error("Writing gradebook snapshot {} failed", generation, e);
+            }
+        });
+    }
+
+    private void apply(GradeEvent event) {
+        switch (event.getType()) {
+            case STUDENT_CREATED: {
+                CollegeStudent student = new CollegeStudent(event.getFirstName(), event.getLastName(), event.getEmailAddress());
+                student.setId(event.getStudentId());
+                students.put(student.getId(), new StoredStudent(student));
+                if (student.getEmailAddress() != null) {
+                    studentIdsByEmail.put(student.getEmailAddress(), student.getId());
+                }
+                nextStudentId = Math.max(nextStudentId, student.getId() + 1);
+                break;
+            }
+            case STUDENT_DELETED: {
+                StoredStudent removed = students.remove(event.getStudentId());
+                if (removed != null) {
+                    if (removed.student.getEmailAddress() != null) {
+                        studentIdsByEmail.remove(removed.student.getEmailAddress(), removed.student.getId());
+                    }
+                    for (SubjectGrade grade : removed.grades) {
+                        grades.remove(grade.getId());
+                    }
+                }
+                break;
+            }
+            case GRADE_CREATED: {
+                StoredStudent stored = students.get(event.getStudentId());
+                if (stored != null) {
+                    SubjectGrade grade = SubjectGrade.of(event.getSubject(), event.getGrade());
+                    grade.setId(event.getGradeId());
+                    grade.setStudentId(event.getStudentId());
+                    grades.put(grade.getId(), grade);
+                    stored.grades.add(grade);
+                }
+                nextGradeId = Math.max(nextGradeId, event.getGradeId() + 1);
+                break;
+            }
+            case GRADE_DELETED: {
+                SubjectGrade removed = grades.remove(event.getGradeId());
+                if (removed != null) {
+                    students.get(removed.getStudentId()).grades.remove(removed);
+                }
+                break;
+            }
+        }
+    }
+
+    private List<GradeEvent> currentState() {
+        List<GradeEvent> state = new ArrayList<>(students.size() + grades.size());
+        for (StoredStudent stored : students.values()) {
+            CollegeStudent student = stored.student;
+            state.add(GradeEvent.studentCreated(student.getId(), student.getFirstName(), student.getLastName(), student.getEmailAddress()));
+            for (SubjectGrade grade : stored.grades) {
+                state.add(GradeEvent.gradeCreated(grade.getId(), grade.getStudentId(), grade.getSubject(), grade.getGrade()));
+            }
+        }
+        return state;
+    }
+
+    private static GradebookCollegeStudent reportCard(StoredStudent stored) {
+        List<Grade> math = new ArrayList<>();
+        List<Grade> science = new ArrayList<>();
+        List<Grade> history = new ArrayList<>();
+        for (SubjectGrade grade : stored.grades) {
+            switch (grade.getSubject()) {
+                case MathGrade.SUBJECT:
+                    math.add(copy(grade));
+                    break;
+                case ScienceGrade.SUBJECT:
+                    science.add(copy(grade));
+                    break;
+                case HistoryGrade.SUBJECT:
+                    history.add(copy(grade));
+                    break;
+                default:
+                    break;
+            }
+        }
+        StudentGrades studentGrades = new StudentGrades();
+        studentGrades.setMathGradeResults(math);
+        studentGrades.setScienceGradeResults(science);
+        studentGrades.setHistoryGradeResults(history);
+        CollegeStudent student = stored.student;
+        return new GradebookCollegeStudent(student.getId(), student.getFirstName(), student.getLastName(),
+                student.getEmailAddress(), studentGrades);
+    }
+
+    private static CollegeStudent copy(CollegeStudent student) {
+        CollegeStudent copy = new CollegeStudent(student.getFirstName(), student.getLastName(), student.getEmailAddress());
+        copy.setId(student.getId());
+        return copy;
+    }
+
+    private static SubjectGrade copy(SubjectGrade grade) {
+        SubjectGrade copy = SubjectGrade.of(grade.getSubject(), grade.getGrade());
+        copy.setId(grade.getId());
+        copy.setStudentId(grade.getStudentId());
+        return copy;
+    }
+
+    private static class StoredStudent {
+        private final CollegeStudent student;
+        // in id order, as the JPA store returns them
+        private final List<SubjectGrade> grades = new ArrayList<>();
+
+        StoredStudent(CollegeStudent student) {
+            this.student = student;
+        }
+    }
+}
@@ -1,133 +1,466 @@
 package com.luv2code.springmvc.service;
 
+import com.luv2code.springmvc.config.CacheConfiguration;
 import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradeAggregate;
+import com.luv2code.springmvc.models.GradeIngestResult;
+import com.luv2code.springmvc.models.GradeLoader;
+import com.luv2code.springmvc.models.GradePage;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.Gradebook;
+import com.luv2code.springmvc.models.GradebookCollegeStudent;
+import com.luv2code.springmvc.models.GradebookPage;
 import com.luv2code.springmvc.models.HistoryGrade;
+import com.luv2code.springmvc.models.LazyStudentGrades;
 import com.luv2code.springmvc.models.MathGrade;
 import com.luv2code.springmvc.models.ScienceGrade;
-import com.luv2code.springmvc.repository.HistoryGradesDao;
-import com.luv2code.springmvc.repository.MathGradesDao;
-import com.luv2code.springmvc.repository.ScienceGradesDao;
+import com.luv2code.springmvc.models.StudentGrades;
+import com.luv2code.springmvc.models.StudentSummary;
+import com.luv2code.springmvc.models.SubjectGrade;
+import com.luv2code.springmvc.repository.GradeAggregateDao;
+import com.luv2code.springmvc.repository.GradeDao;
+import com.luv2code.springmvc.repository.GradeJdbcDao;
 import com.luv2code.springmvc.repository.StudentDao;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
 public class StudentAndGradeService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static final Set<String> GRADE_TYPES = Set.copyOf(SubjectGrade.SUBJECTS);
+
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
     @Autowired
     private StudentDao studentDao;
 
     @Autowired
-    @Qualifier("mathGrades")
-    private MathGrade mathGrade;
+    private GradeDao gradeDao;
+
+    @Autowired
+    private GradeJdbcDao gradeJdbcDao;
 
     @Autowired
-    private MathGradesDao mathGradesDao;
+    private GradeAggregateDao gradeAggregateDao;
 
     @Autowired
-    @Qualifier("scienceGrades")
-    private ScienceGrade scienceGrade;
+    private CacheManager cacheManager;
 
     @Autowired
-    private ScienceGradesDao scienceGradesDao;
+    private PlatformTransactionManager transactionManager;
 
     @Autowired
-    @Qualifier("historyGrades")
-    private HistoryGrade historyGrade;
+    private GpaLeaderboardService gpaLeaderboardService;
 
     @Autowired
-    private HistoryGradesDao historyGradesDao;
+    private StudentSearchService studentSearchService;
 
-    public void createStudent(String firstName, String lastName, String email) {
+    @Autowired
+    private StudentExistenceFilter studentExistenceFilter;
+
+    @Value("${gradebook.ingest.batch-size:500}")
+    private int ingestBatchSize;
+
+    @CacheEvict(value = CacheConfiguration.GRADEBOOK, allEntries = true)
+    public CollegeStudent createStudent(String firstName, String lastName, String email) {
         CollegeStudent student = new CollegeStudent(firstName, lastName, email);
         student.setId(0);
-        studentDao.save(student);
+        CollegeStudent saved = studentDao.save(student);
+        studentExistenceFilter.studentCreated(saved.getId(), saved.getEmailAddress());
+        studentSearchService.studentCreated(StudentSummary.of(saved.getId(), saved.getFirstName(), saved.getLastName(),
+                saved.getEmailAddress()));
+        return saved;
     }
 
+    // a student deleted on another node still passes until the filter refreshes, which then removes its grades
     public boolean checkIfStudentIsNull(int id) {
-        Optional<CollegeStudent> student = studentDao.findById(id);
-        if (student.isPresent()) {
+        if (studentExistenceFilter.isKnownStudent(id)) {
+            return true;
+        }
+        // unknown here, but it may have been created on another node; an existence query, no entity is loaded
+        if (studentDao.existsById(id)) {
+            studentExistenceFilter.studentFound(id);
             return true;
         }
         return false;
 
     }
 
+    // false only means no student was found with the email; the unique index still rejects a duplicate insert
+    public boolean isEmailTaken(String emailAddress) {
+        return studentExistenceFilter.mightHaveEmail(emailAddress) && studentDao.existsByEmailAddress(emailAddress);
+    }
+
     public void deleteStudent(int id) {
-        if (checkIfStudentIsNull(id)) {
-            studentDao.deleteById(id);
-            mathGradesDao.deleteByStudentId(id);
-            scienceGradesDao.deleteByStudentId(id);
-            historyGradesDao.deleteByStudentId(id);
+        deleteStudents(List.of(id));
+    }
+
+    // a fixed number of bulk DELETE statements per chunk of ids, independent of how many grades they have
+    public int deleteStudents(Collection<Integer> ids) {
+        int deleted = 0;
+        List<Integer> chunk = new ArrayList<>(Math.min(ids.size(), DELETE_CHUNK_SIZE));
+        for (Integer id : ids) {
+            chunk.add(id);
+            if (chunk.size() == DELETE_CHUNK_SIZE) {
+                deleted += deleteStudentChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            deleted += deleteStudentChunk(chunk);
+        }
+        if (!ids.isEmpty()) {
+            evictGradebookPages();
         }
+        return deleted;
     }
 
+    private int deleteStudentChunk(List<Integer> ids) {
+        int deleted = studentDao.deleteByIdIn(ids);
+        gradeDao.deleteByStudentIdIn(ids);
+        gradeAggregateDao.deleteByStudentIdIn(ids);
+        gpaLeaderboardService.studentsRemoved(new ArrayList<>(ids));
+        studentSearchService.studentsRemoved(new ArrayList<>(ids));
+        studentExistenceFilter.studentsRemoved(new ArrayList<>(ids));
+        for (Integer id : ids) {
+            evictStudentGrades(id);
+        }
+        return deleted;
+    }
+
+    @Transactional(readOnly = true)
     public Iterable<CollegeStudent> getGradeBook() {
         return studentDao.findAll();
     }
 
+    // cached reads go to the primary: a replica read right after an eviction would cache the lag until expiry
+    @Cacheable(value = CacheConfiguration.GRADEBOOK, key = "#after + ':' + #pageSize")
+    public GradebookPage getGradeBook(int after, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        // fetch one extra row so we know whether there is a next page without a count query
+        List<StudentSummary> students = studentDao.findSummariesByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, size + 1));
+        boolean hasNext = students.size() > size;
+        if (hasNext) {
+            students = new ArrayList<>(students.subList(0, size));
+        }
+        int nextCursor = hasNext ? students.get(size - 1).getId() : 0;
+        return new GradebookPage(students, after, size, nextCursor, hasNext);
+    }
+
+    @Cacheable(value = CacheConfiguration.REPORT_CARDS, key = "#id", unless = "#result == null")
+    public GradebookCollegeStudent studentInformation(int id) {
+        Optional<StudentSummary> student = studentDao.findSummaryById(id);
+        if (!student.isPresent()) {
+            return null;
+        }
+        // cached and shared between requests, so the grades are loaded up front rather than lazily
+        return loadReportCards(List.of(student.get())).get(0);
+    }
+
+    // a page of one subject's grades, or null for an unknown student; read from the primary like the report card
+    public GradePage getGradeResults(int studentId, String subject, int offset, int pageSize) {
+        Optional<StudentSummary> student = studentDao.findSummaryById(studentId);
+        if (!student.isPresent()) {
+            return null;
+        }
+        return gradePage(getReportCards(List.of(student.get())).getStudents().get(0), subject, offset, pageSize);
+    }
+
+    protected static GradePage gradePage(GradebookCollegeStudent reportCard, String subject, int offset, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        // one extra grade tells whether there is a next page
+        List<Grade> grades = reportCard.getStudentGrades().getGradeResults(subject, offset, size + 1);
+        boolean hasNext = grades.size() > size;
+        if (hasNext) {
+            grades = new ArrayList<>(grades.subList(0, size));
+        }
+        return new GradePage(reportCard.getId(), subject, grades, offset, size, hasNext);
+    }
+
+    @Transactional(readOnly = true)
+    public Gradebook getReportCards(int after, int pageSize) {
+        return getReportCards(getGradeBook(after, pageSize).getStudents());
+    }
+
+    // grades are only read when a page touches them: one IN query per subject for the whole page
+    @Transactional(readOnly = true)
+    public Gradebook getReportCards(List<? extends StudentSummary> students) {
+        List<Integer> studentIds = new ArrayList<>(students.size());
+        for (StudentSummary student : students) {
+            studentIds.add(student.getId());
+        }
+        PageGradeLoader loader = new PageGradeLoader(studentIds);
+        List<GradebookCollegeStudent> reportCards = new ArrayList<>(students.size());
+        for (StudentSummary student : students) {
+            reportCards.add(new GradebookCollegeStudent(student.getId(), student.getFirstName(), student.getLastName(),
+                    student.getEmailAddress(), new LazyStudentGrades(student.getId(), loader)));
+        }
+        return new Gradebook(reportCards);
+    }
+
+    // loads the grades of every student with one IN query on the grade table instead of three finders per student
+    private List<GradebookCollegeStudent> loadReportCards(List<? extends StudentSummary> students) {
+        List<GradebookCollegeStudent> reportCards = new ArrayList<>(students.size());
+        if (students.isEmpty()) {
+            return reportCards;
+        }
+        List<Integer> studentIds = new ArrayList<>(students.size());
+        for (StudentSummary student : students) {
+            studentIds.add(student.getId());
+        }
+        Map<Integer, List<Grade>> mathGrades = new HashMap<>();
+        Map<Integer, List<Grade>> scienceGrades = new HashMap<>();
+        Map<Integer, List<Grade>> historyGrades = new HashMap<>();
+        Map<String, Map<Integer, List<Grade>>> gradesBySubject = Map.of(
+                MathGrade.SUBJECT, mathGrades, ScienceGrade.SUBJECT, scienceGrades, HistoryGrade.SUBJECT, historyGrades);
+        for (SubjectGrade grade : gradeDao.findByStudentIdInOrderByIdAsc(studentIds)) {
+            Map<Integer, List<Grade>> gradesByStudent = gradesBySubject.get(grade.getSubject());
+            if (gradesByStudent != null) {
+                gradesByStudent.computeIfAbsent(grade.getStudentId(), studentId -> new ArrayList<>()).add(grade);
+            }
+        }
+
+        for (StudentSummary student : students) {
+            StudentGrades studentGrades = new StudentGrades();
+            studentGrades.setMathGradeResults(mathGrades.getOrDefault(student.getId(), new ArrayList<>()));
+            studentGrades.setScienceGradeResults(scienceGrades.getOrDefault(student.getId(), new ArrayList<>()));
+            studentGrades.setHistoryGradeResults(historyGrades.getOrDefault(student.getId(), new ArrayList<>()));
+            reportCards.add(new GradebookCollegeStudent(student.getId(), student.getFirstName(), student.getLastName(),
+                    student.getEmailAddress(), studentGrades));
+        }
+        return reportCards;
+    }
+
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfiguration.REPORT_CARDS, key = "#id"),
+            @CacheEvict(value = CacheConfiguration.GRADE_AGGREGATES, key = "#id")
+    })
     public boolean createGrade(double grade, int id, String gradeType) {
+        return addGrade(grade, id, gradeType) != null;
+    }
+
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfiguration.REPORT_CARDS, key = "#id"),
+            @CacheEvict(value = CacheConfiguration.GRADE_AGGREGATES, key = "#id")
+    })
+    // every call builds its own entity; the service is a singleton shared by all request threads
+    public SubjectGrade addGrade(double grade, int id, String gradeType) {
         if (!checkIfStudentIsNull(id)) {
-            return false;
-        }
-        if (grade >= 0 && grade <= 100) {
-            if (gradeType.equals("math")) {
-                mathGrade.setId(0);
-                mathGrade.setGrade(grade);
-                mathGrade.setStudentId(id);
-                mathGradesDao.save(mathGrade);
-                return true;
+            return null;
+        }
+        if (isValidGrade(grade, gradeType)) {
+            SubjectGrade subjectGrade = SubjectGrade.of(gradeType, grade);
+            subjectGrade.setStudentId(id);
+            gradeDao.save(subjectGrade);
+            updateGradeAggregates(List.of(new GradeAggregate(id, gradeType, 1, grade, grade, grade)));
+            gpaLeaderboardService.gradeAdded(id, gradeType, grade);
+            return subjectGrade;
+        }
+        return null;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SubjectGrade> findGrade(int id) {
+        return gradeDao.findById(id);
+    }
+
+    public static boolean isValidGrade(double grade, String gradeType) {
+        return grade >= 0 && grade <= 100 && gradeType != null && GRADE_TYPES.contains(gradeType);
+    }
+
+    public GradeIngestResult createGrades(Iterable<GradeSubmission> submissions) {
+        int submitted = 0;
+        int created = 0;
+        List<GradeSubmission> chunk = new ArrayList<>(ingestBatchSize);
+        for (GradeSubmission submission : submissions) {
+            submitted++;
+            chunk.add(submission);
+            if (chunk.size() == ingestBatchSize) {
+                created += createGradeChunk(chunk);
+                chunk.clear();
             }
-            if (gradeType.equals("science")) {
-                scienceGrade.setId(0);
-                scienceGrade.setGrade(grade);
-                scienceGrade.setStudentId(id);
-                scienceGradesDao.save(scienceGrade);
-                return true;
+        }
+        if (!chunk.isEmpty()) {
+            created += createGradeChunk(chunk);
+        }
+        return new GradeIngestResult(submitted, created);
+    }
+
+    private int createGradeChunk(List<GradeSubmission> chunk) {
+        Set<Integer> existingIds = new HashSet<>();
+        Set<Integer> unknownIds = new HashSet<>();
+        for (GradeSubmission submission : chunk) {
+            int studentId = submission.getStudentId();
+            (studentExistenceFilter.isKnownStudent(studentId) ? existingIds : unknownIds).add(studentId);
+        }
+        // one set-based lookup per chunk for the ids the existence filter does not know, not one per grade
+        if (!unknownIds.isEmpty()) {
+            for (Integer studentId : studentDao.findExistingIds(unknownIds)) {
+                existingIds.add(studentId);
+                studentExistenceFilter.studentFound(studentId);
             }
-            if (gradeType.equals("history")) {
-                historyGrade.setId(0);
-                historyGrade.setGrade(grade);
-                historyGrade.setStudentId(id);
-                historyGradesDao.save(historyGrade);
-                return true;
+        }
+
+        Map<String, List<GradeSubmission>> gradesByType = new HashMap<>();
+        for (GradeSubmission submission : chunk) {
+            if (existingIds.contains(submission.getStudentId())
+                    && isValidGrade(submission.getGrade(), submission.getGradeType())) {
+                gradesByType.computeIfAbsent(submission.getGradeType(), type -> new ArrayList<>()).add(submission);
             }
+        }
 
+        int created = 0;
+        Map<String, GradeAggregate> deltas = new HashMap<>();
+        for (Map.Entry<String, List<GradeSubmission>> entry : gradesByType.entrySet()) {
+            created += gradeJdbcDao.batchInsert(entry.getKey(), entry.getValue(), ingestBatchSize);
+            gpaLeaderboardService.gradesAdded(entry.getValue());
+            for (GradeSubmission submission : entry.getValue()) {
+                GradeAggregate delta = deltas.computeIfAbsent(submission.getStudentId() + ":" + entry.getKey(),
+                        key -> new GradeAggregate(submission.getStudentId(), entry.getKey(), 0, 0, submission.getGrade(), submission.getGrade()));
+                delta.setGradeCount(delta.getGradeCount() + 1);
+                delta.setGradeSum(delta.getGradeSum() + submission.getGrade());
+                delta.setMinGrade(Math.min(delta.getMinGrade(), submission.getGrade()));
+                delta.setMaxGrade(Math.max(delta.getMaxGrade(), submission.getGrade()));
+            }
         }
-        return false;
+        updateGradeAggregates(new ArrayList<>(deltas.values()));
+        for (GradeAggregate delta : deltas.values()) {
+            evictStudentGrades(delta.getStudentId());
+        }
+        return created;
     }
 
-    public int deleteGrade(int id, String gradeType) {
-        int studentId = 0;
-        if (gradeType.equals("math")) {
-            Optional<MathGrade> mathGrade = mathGradesDao.findById(id);
-            if (!mathGrade.isPresent()) {
-                return studentId;
+    private void updateGradeAggregates(List<GradeAggregate> deltas) {
+        // only rows known to exist are batched; the rest are updated one by one, where the update count is exact
+        List<GradeAggregate> single = deltas;
+        if (deltas.size() > 1) {
+            Set<Integer> studentIds = new HashSet<>();
+            for (GradeAggregate delta : deltas) {
+                studentIds.add(delta.getStudentId());
+            }
+            Set<String> existing = gradeJdbcDao.findAggregateKeys(studentIds);
+            List<GradeAggregate> batched = new ArrayList<>();
+            single = new ArrayList<>();
+            for (GradeAggregate delta : deltas) {
+                (existing.contains(delta.getStudentId() + ":" + delta.getSubject()) ? batched : single).add(delta);
+            }
+            gradeJdbcDao.addToAggregates(batched, ingestBatchSize);
+        }
+        for (GradeAggregate delta : single) {
+            if (gradeJdbcDao.addToAggregate(delta) == 0) {
+                // another transaction may be creating the same row, so retry the update once we hold the student lock
+                gradeJdbcDao.lockStudent(delta.getStudentId());
+                if (gradeJdbcDao.addToAggregate(delta) == 0) {
+                    gradeJdbcDao.insertAggregate(delta);
+                }
             }
-            studentId = mathGrade.get().getStudentId();
-            mathGradesDao.deleteById(id);
         }
-        if (gradeType.equals("science")) {
-            Optional<ScienceGrade> scienceGrade = scienceGradesDao.findById(id);
-            if (!scienceGrade.isPresent()) {
-                return studentId;
+    }
+
+    // the page's students share one loader, so the first access to a subject reads it for all of them
+    private class PageGradeLoader implements GradeLoader {
+        private final List<Integer> studentIds;
+        private final Map<String, Map<Integer, List<Grade>>> loaded = new HashMap<>();
+
+        PageGradeLoader(List<Integer> studentIds) {
+            this.studentIds = studentIds;
+        }
+
+        @Override
+        public List<Grade> loadGrades(int studentId, String subject) {
+            Map<Integer, List<Grade>> gradesByStudent = loaded.computeIfAbsent(subject,
+                    type -> readOnly().execute(status -> gradeJdbcDao.findGrades(type, studentIds)));
+            return new ArrayList<>(gradesByStudent.getOrDefault(studentId, List.of()));
+        }
+
+        @Override
+        public List<Grade> loadGrades(int studentId, String subject, int offset, int limit) {
+            return readOnly().execute(status -> gradeJdbcDao.findGrades(subject, studentId, offset, limit));
+        }
+    }
+
+    // lazy loads run after the service call has returned, so they need their own (replica-eligible) transaction
+    private TransactionTemplate readOnly() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    protected void evictStudentGrades(int studentId) {
+        cacheManager.getCache(CacheConfiguration.REPORT_CARDS).evict(studentId);
+        cacheManager.getCache(CacheConfiguration.GRADE_AGGREGATES).evict(studentId);
+    }
+
+    protected void evictGradebookPages() {
+        cacheManager.getCache(CacheConfiguration.GRADEBOOK).clear();
+    }
+
+    @Cacheable(value = CacheConfiguration.GRADE_AGGREGATES, key = "#studentId")
+    public Map<String, GradeAggregate> getGradeAggregates(int studentId) {
+        Map<String, GradeAggregate> aggregates = new HashMap<>();
+        for (GradeAggregate aggregate : gradeAggregateDao.findByStudentId(studentId)) {
+            aggregates.put(aggregate.getSubject(), aggregate);
+        }
+        return aggregates;
+    }
+
+    // compares the running aggregates with the grade tables and optionally rebuilds them; returns the mismatch count
+    public int checkGradeAggregates(boolean rebuild) {
+        Map<String, GradeAggregate> expected = new HashMap<>();
+        for (String gradeType : SubjectGrade.SUBJECTS) {
+            for (GradeAggregate aggregate : gradeJdbcDao.computeAggregates(gradeType).values()) {
+                expected.put(aggregate.getStudentId() + ":" + gradeType, aggregate);
             }
-            studentId = scienceGrade.get().getStudentId();
-            scienceGradesDao.deleteById(id);
         }
-        if (gradeType.equals("history")) {
-            Optional<HistoryGrade> historyGrade = historyGradesDao.findById(id);
-            if (!historyGrade.isPresent()) {
-                return studentId;
+        int mismatches = 0;
+        for (GradeAggregate stored : gradeAggregateDao.findAll()) {
+            GradeAggregate computed = expected.remove(stored.getStudentId() + ":" + stored.getSubject());
+            if (computed == null ? stored.getGradeCount() != 0 : !stored.matches(computed)) {
+                mismatches++;
             }
-            studentId = historyGrade.get().getStudentId();
-            historyGradesDao.deleteById(id);
         }
+        mismatches += expected.size();
+        if (rebuild && mismatches > 0) {
+            gradeJdbcDao.rebuildAggregates();
+            cacheManager.getCache(CacheConfiguration.GRADE_AGGREGATES).clear();
+        }
+        return mismatches;
+    }
+
+    public int deleteGrade(int id, String gradeType) {
+        Optional<SubjectGrade> grade = gradeDao.findById(id);
+        if (!grade.isPresent() || !grade.get().getSubject().equals(gradeType)) {
+            return 0;
+        }
+        int studentId = grade.get().getStudentId();
+        gradeDao.deleteById(id);
+        gradeJdbcDao.removeFromAggregate(studentId, gradeType, id, grade.get().getGrade());
+        gpaLeaderboardService.gradeRemoved(studentId, gradeType, grade.get().getGrade());
+        evictStudentGrades(studentId);
         return studentId;
     }
 }
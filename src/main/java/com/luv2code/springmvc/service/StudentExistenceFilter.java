@@ -0,0 +1,200 @@
+package com.luv2code.springmvc.service;
+
+import com.luv2code.springmvc.models.BloomFilter;
+import com.luv2code.springmvc.repository.GradeJdbcDao;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * Which students this node knows to exist: a bitmap over student ids (a bit per id up to the highest one) and a
+ * Bloom filter over email addresses. Both are filled from the student table and updated as creates and deletes
+ * commit here. Writes on other nodes are only picked up by the periodic refresh, so callers treat an unknown id
+ * or email as "ask the database", never as "does not exist". A known id is trusted: grades written for a student
+ * deleted on another node before the refresh noticed are removed by the refresh (grade.student_id has no foreign
+ * key).
+ */
+@Service
+public class StudentExistenceFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentExistenceFilter.class);
+
+    private static final double EMAIL_FALSE_POSITIVE_RATE = 0.01;
+
+    @Autowired
+    private GradeJdbcDao gradeJdbcDao;
+
+    @Value("${gradebook.existence.expected-students:100000}")
+    private int expectedStudents;
+
+    // 0 disables the refresh
+    @Value("${gradebook.existence.refresh-interval:5m}")
+    private Duration refreshInterval;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private BitSet ids = new BitSet();
+
+    private BloomFilter emails = new BloomFilter(1, EMAIL_FALSE_POSITIVE_RATE);
+
+    // non-null while a rebuild scans; changes that commit meanwhile are applied again to the rebuilt filter
+    private List<Runnable> changesDuringRebuild;
+
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    public void start() {
+        rebuild();
+        if (!refreshInterval.isZero()) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "student-existence-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = refreshInterval.toMillis();
+            refresher.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        BitSet rebuiltIds = new BitSet();
+        BloomFilter rebuiltEmails = new BloomFilter(Math.max(expectedStudents, 2 * knownStudents()), EMAIL_FALSE_POSITIVE_RATE);
+        boolean scanned = false;
+        try {
+            gradeJdbcDao.scanStudents(rs -> {
+                rebuiltIds.set(rs.getInt(1));
+                String email = rs.getString(4);
+                if (email != null) {
+                    rebuiltEmails.put(email);
+                }
+            });
+            scanned = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (scanned) {
+                    ids = rebuiltIds;
+                    emails = rebuiltEmails;
+                    changesDuringRebuild.forEach(Runnable::run);
+                }
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // the write methods take effect when the surrounding transaction commits
+    public void studentCreated(int studentId, String emailAddress) {
+        AfterCommit.run(() -> apply(() -> {
+            ids.set(studentId);
+            if (emailAddress != null) {
+                emails.put(emailAddress);
+            }
+        }));
+    }
+
+    // an id the database confirmed, e.g. one created on another node
+    public void studentFound(int studentId) {
+        AfterCommit.run(() -> apply(() -> ids.set(studentId)));
+    }
+
+    // a Bloom filter cannot forget, so removed emails stay possible matches until the next rebuild
+    public void studentsRemoved(Collection<Integer> studentIds) {
+        AfterCommit.run(() -> apply(() -> {
+            for (Integer studentId : studentIds) {
+                ids.clear(studentId);
+            }
+        }));
+    }
+
+    public boolean isKnownStudent(int studentId) {
+        if (studentId < 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return ids.get(studentId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // false: no student on this node has the email; true: one may have
+    public boolean mightHaveEmail(String emailAddress) {
+        if (emailAddress == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return emails.mightContain(emailAddress);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int knownStudents() {
+        lock.readLock().lock();
+        try {
+            return ids.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int deleteOrphanedGrades() {
+        int students = gradeJdbcDao.deleteOrphanedGrades();
+        if (students > 0) {
+            log.info("Removed the grades of {} students deleted on other nodes", students);
+        }
+        return students;
+    }
+
+    private void refresh() {
+        try {
+            rebuild();
+            deleteOrphanedGrades();
+        } catch (RuntimeException e) {
+            log.warn("Student existence refresh failed, keeping the previous filter", e);
+        }
+    }
+}
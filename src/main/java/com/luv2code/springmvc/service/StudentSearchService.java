@@ -0,0 +1,329 @@
+package com.luv2code.springmvc.service;
+
+import com.luv2code.springmvc.models.StudentSearchPage;
+import com.luv2code.springmvc.models.StudentSummary;
+import com.luv2code.springmvc.repository.GradeJdbcDao;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/*
+ * In-memory search over student names and emails. Names and the parts of the email are indexed as lower-case
+ * tokens in a sorted map for prefix lookups, and the trigrams of every distinct token point back at it
+ * for typo-tolerant matches. Every query term has to match; a term scores 3 for an exact token, 2 for a prefix and
+ * its trigram similarity (at most 1) for a fuzzy match. Kept in sync with createStudent/deleteStudents as they
+ * commit, and rebuilt from the student table at startup and periodically so students written on other nodes are
+ * found too.
+ */
+@Service
+public class StudentSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(StudentSearchService.class);
+
+    private static final double EXACT = 3;
+
+    private static final double PREFIX = 2;
+
+    private static final double MIN_SIMILARITY = 0.4;
+
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<Match> RANKING = Comparator
+            .comparingDouble((Match match) -> match.score).reversed()
+            .thenComparing(match -> match.student.getLastName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(match -> match.student.getFirstName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER))
+            .thenComparingInt(match -> match.student.getId());
+
+    @Autowired
+    private GradeJdbcDao gradeJdbcDao;
+
+    // 0 disables the refresh
+    @Value("${gradebook.search.refresh-interval:5m}")
+    private Duration refreshInterval;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index index = new Index();
+
+    // non-null while a rebuild scans; changes that commit meanwhile are applied again to the rebuilt index
+    private List<Runnable> changesDuringRebuild;
+
+    private ScheduledExecutorService refresher;
+
+    // the first rebuild runs before the web server accepts requests
+    @PostConstruct
+    public void start() {
+        rebuild();
+        if (!refreshInterval.isZero()) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "student-search-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = refreshInterval.toMillis();
+            refresher.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    // builds a new index beside the current one, so searches keep running while the student table is scanned
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Index rebuilt = new Index();
+        boolean scanned = false;
+        try {
+            gradeJdbcDao.scanStudents(rs -> rebuilt.add(StudentSummary.of(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4))));
+            scanned = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (scanned) {
+                    index = rebuilt;
+                    changesDuringRebuild.forEach(Runnable::run);
+                }
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // the write methods take effect when the surrounding transaction commits
+    public void studentCreated(StudentSummary student) {
+        AfterCommit.run(() -> apply(() -> index.add(student)));
+    }
+
+    public void studentsRemoved(Collection<Integer> studentIds) {
+        AfterCommit.run(() -> apply(() -> {
+            for (Integer studentId : studentIds) {
+                index.remove(studentId);
+            }
+        }));
+    }
+
+    public StudentSearchPage search(String query, int offset, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, StudentAndGradeService.MAX_PAGE_SIZE));
+        int start = Math.max(0, offset);
+        Set<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return new StudentSearchPage(query, List.of(), start, size, 0);
+        }
+
+        // the best start + size matches, worst on top; only they are ranked, not every match
+        int wanted = (int) Math.min((long) start + size, Integer.MAX_VALUE - 1);
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(wanted, 1024) + 1, RANKING.reversed());
+        int total;
+        lock.readLock().lock();
+        try {
+            Index current = index;
+            Map<Integer, Double> scores = null;
+            for (String term : terms) {
+                Map<Integer, Double> termScores = current.match(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((studentId, score) -> score + termScores.get(studentId));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            total = scores.size();
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                best.add(new Match(current.students.get(entry.getKey()), entry.getValue()));
+                if (best.size() > wanted) {
+                    best.poll();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<StudentSummary> page = new ArrayList<>(size);
+        for (int i = start; i < ranked.size(); i++) {
+            page.add(ranked.get(i).student);
+        }
+        return new StudentSearchPage(query, page, start, size, total);
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void refresh() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Student search refresh failed, keeping the previous index", e);
+        }
+    }
+
+    private static Set<String> tokensOf(StudentSummary student) {
+        Set<String> studentTokens = new LinkedHashSet<>();
+        studentTokens.addAll(tokenize(student.getFirstName()));
+        studentTokens.addAll(tokenize(student.getLastName()));
+        studentTokens.addAll(tokenize(student.getEmailAddress()));
+        return studentTokens;
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String term : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    // padded so the first and last letters weigh as much as the middle ones
+    private static Set<String> trigramsOf(String token) {
+        String padded = " " + token + " ";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // the searchable state; replaced as a whole by a rebuild
+    private static class Index {
+        private final Map<Integer, StudentSummary> students = new HashMap<>();
+
+        // token -> students with that token
+        private final NavigableMap<String, Set<Integer>> tokens = new TreeMap<>();
+
+        // trigram -> tokens containing it
+        private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+        // best score per student for one term
+        Map<Integer, Double> match(String term) {
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Set<Integer>> entry : tokens.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                double score = entry.getKey().equals(term) ? EXACT : PREFIX;
+                for (Integer studentId : entry.getValue()) {
+                    scores.merge(studentId, score, Math::max);
+                }
+            }
+            if (term.length() < MIN_FUZZY_LENGTH) {
+                return scores;
+            }
+            Set<String> termTrigrams = trigramsOf(term);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String trigram : termTrigrams) {
+                for (String token : trigrams.getOrDefault(trigram, Set.of())) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                // Jaccard similarity of the trigram sets; a token of length n has at most n padded trigrams
+                int common = entry.getValue();
+                double similarity = common / (double) Math.max(common, termTrigrams.size() + entry.getKey().length() - common);
+                if (similarity >= MIN_SIMILARITY) {
+                    for (Integer studentId : tokens.get(entry.getKey())) {
+                        scores.merge(studentId, similarity, Math::max);
+                    }
+                }
+            }
+            return scores;
+        }
+
+        void add(StudentSummary student) {
+            remove(student.getId());
+            students.put(student.getId(), student);
+            for (String token : tokensOf(student)) {
+                Set<Integer> ids = tokens.computeIfAbsent(token, key -> new HashSet<>());
+                if (ids.isEmpty()) {
+                    for (String trigram : trigramsOf(token)) {
+                        trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(token);
+                    }
+                }
+                ids.add(student.getId());
+            }
+        }
+
+        void remove(int studentId) {
+            StudentSummary student = students.remove(studentId);
+            if (student == null) {
+                return;
+            }
+            for (String token : tokensOf(student)) {
+                Set<Integer> ids = tokens.get(token);
+                if (ids == null) {
+                    continue;
+                }
+                ids.remove(studentId);
+                if (ids.isEmpty()) {
+                    tokens.remove(token);
+                    for (String trigram : trigramsOf(token)) {
+                        Set<String> withTrigram = trigrams.get(trigram);
+                        if (withTrigram != null && withTrigram.remove(token) && withTrigram.isEmpty()) {
+                            trigrams.remove(trigram);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static class Match {
+        private final StudentSummary student;
+        private final double score;
+
+        Match(StudentSummary student, double score) {
+            this.student = student;
+            this.score = score;
+        }
+    }
+}
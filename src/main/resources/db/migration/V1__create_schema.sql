@@ -0,0 +1,23 @@
+create table student (
+    id int auto_increment primary key,
+    first_name varchar(255),
+    last_name varchar(255),
+    email_address varchar(255)
+);
+
+create table grade (
+    id int auto_increment primary key,
+    subject varchar(32) not null,
+    student_id int not null,
+    grade double precision not null
+);
+
+create table grade_aggregate (
+    id int auto_increment primary key,
+    student_id int not null,
+    subject varchar(255),
+    grade_count int not null,
+    grade_sum double precision not null,
+    min_grade double precision,
+    max_grade double precision
+);
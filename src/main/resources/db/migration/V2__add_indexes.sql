@@ -0,0 +1,7 @@
+-- report cards, per-student deletes and aggregate recomputation all filter on student_id
+create index idx_grade_student_subject on grade (student_id, subject);
+
+create unique index uk_grade_aggregate_student_subject on grade_aggregate (student_id, subject);
+
+-- findByEmailAddress is a point lookup and an email identifies one student
+create unique index uk_student_email_address on student (email_address);
@@ -0,0 +1,96 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.CohortStatistics;
+import com.luv2code.springmvc.models.SubjectStatistics;
+import com.luv2code.springmvc.service.CohortAnalyticsService;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@TestPropertySource(locations="classpath:application.properties")
+@AutoConfigureMockMvc
+@SpringBootTest
+public class CohortAnalyticsServiceTest {
+
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        Random random = new Random(7);
+        for (String subject : List.of("math", "science", "history")) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                rows.add(new Object[]{subject, 1 + random.nextInt(500), Math.round(random.nextDouble() * 10000) / 100.0});
+            }
+            jdbcTemplate.batchUpdate("insert into grade(subject, student_id, grade) values (?, ?, ?)", rows);
+        }
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('math', 9999, 100)");
+    }
+
+    @Test
+    public void cohortStatisticsAreIndependentOfParallelism() {
+        CohortStatistics sequential = cohortAnalyticsService.getCohortStatistics(5, new ForkJoinPool(1));
+        CohortStatistics parallel = cohortAnalyticsService.getCohortStatistics(5, new ForkJoinPool(4));
+        CohortStatistics odd = cohortAnalyticsService.getCohortStatistics(5, new ForkJoinPool(7));
+
+        assertEquals(sequential, parallel, "1 vs 4 threads");
+        assertEquals(sequential, odd, "1 vs 7 threads");
+
+        SubjectStatistics math = sequential.getSubjects().get("math");
+        assertEquals(20_001, math.getCount());
+        assertEquals(20_001, sum(math.getHistogram()), "every grade lands in a bucket");
+        assertEquals(100, math.getMax());
+        assertEquals(9999, math.getTopStudents().get(0).getStudentId(), "single perfect grade ranks first");
+        assertEquals(5, math.getTopStudents().size());
+        assertEquals(60_001, sequential.getOverall().getCount());
+        assertEquals(50, sequential.getOverall().getMean(), 1.0);
+    }
+
+    @Test
+    public void topIsBoundedAndValidated() throws Exception {
+        CohortStatistics all = cohortAnalyticsService.getCohortStatistics(Integer.MAX_VALUE, new ForkJoinPool(2));
+        assertEquals(501, all.getSubjects().get("math").getTopStudents().size(), "every student, without sizing by top");
+
+        mockMvc.perform(get("/analytics/cohort").param("top", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/analytics/cohort").param("top", "2147483647"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subjects.math.topStudents.length()").value(StudentAndGradeService.MAX_PAGE_SIZE));
+    }
+
+    private static int sum(int[] values) {
+        int total = 0;
+        for (int value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("delete from grade");
+    }
+}
@@ -0,0 +1,39 @@
+package com.luv2code.springmvc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("fast-startup")
+@AutoConfigureMockMvc
+@SpringBootTest
+public class FastStartupProfileTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void onlyIndexesAndChecksStartEagerly() throws Exception {
+        assertTrue(beanFactory.getBeanDefinition("gradebookExportService").isLazyInit());
+        assertFalse(beanFactory.containsSingleton("gradebookExportService"), "created on first use");
+        assertTrue(beanFactory.containsSingleton("schemaIndexVerifier"));
+        assertTrue(beanFactory.containsSingleton("studentSearchService"));
+        assertTrue(beanFactory.containsSingleton("studentExistenceFilter"));
+        assertTrue(beanFactory.containsSingleton("gpaLeaderboardService"));
+
+        mockMvc.perform(get("/api/students")).andExpect(status().isOk());
+        mockMvc.perform(get("/")).andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,160 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.StudentAverage;
+import com.luv2code.springmvc.models.StudentRank;
+import com.luv2code.springmvc.service.CohortAnalyticsService;
+import com.luv2code.springmvc.service.GpaLeaderboardService;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class GpaLeaderboardServiceTest {
+
+    @Autowired
+    private GpaLeaderboardService gpaLeaderboardService;
+
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Autowired
+    private StudentAndGradeService studentService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void rebuiltRankingsMatchCohortTopStudents() {
+        Random random = new Random(11);
+        for (String subject : List.of("math", "science", "history")) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                // whole grades keep every sum exact, whatever order the two services add them in
+                rows.add(new Object[]{subject, 1 + random.nextInt(300), random.nextInt(101)});
+            }
+            jdbcTemplate.batchUpdate("insert into grade(subject, student_id, grade) values (?, ?, ?)", rows);
+        }
+        gpaLeaderboardService.rebuild();
+
+        var statistics = cohortAnalyticsService.getCohortStatistics(25);
+        for (String subject : List.of("math", "science", "history")) {
+            assertEquals(statistics.getSubjects().get(subject).getTopStudents(), gpaLeaderboardService.top(subject, 25), subject);
+        }
+        List<StudentAverage> overall = gpaLeaderboardService.top(GpaLeaderboardService.OVERALL, 25);
+        assertEquals(statistics.getOverall().getTopStudents(), overall);
+
+        StudentAverage best = overall.get(0);
+        StudentRank rank = gpaLeaderboardService.rankOf(GpaLeaderboardService.OVERALL, best.getStudentId());
+        assertEquals(1, rank.getRank());
+        assertEquals(100.0, rank.getPercentile());
+        StudentAverage tenth = overall.get(9);
+        int tenthRank = gpaLeaderboardService.rankOf(GpaLeaderboardService.OVERALL, tenth.getStudentId()).getRank();
+        assertTrue(tenthRank <= 10 && (tenthRank == 10 || overall.get(tenthRank - 1).getAverage() == tenth.getAverage()),
+                "equal averages share the best rank");
+    }
+
+    @Test
+    public void rankingsFollowCommittedWrites() throws Exception {
+        gpaLeaderboardService.rebuild();
+        int eric = studentService.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com").getId();
+        int chad = studentService.createStudent("Chad", "Darby", "chad.darby@luv2code_school.com").getId();
+        studentService.createGrade(90, eric, "math");
+        studentService.createGrade(70, eric, "science");
+        int chadMath = studentService.addGrade(95, chad, "math").getId();
+
+        assertEquals(List.of(new StudentAverage(chad, 1, 95), new StudentAverage(eric, 1, 90)), gpaLeaderboardService.top("math", 10));
+        assertEquals(new StudentAverage(chad, 1, 95), gpaLeaderboardService.top(GpaLeaderboardService.OVERALL, 1).get(0));
+        StudentRank ericMath = gpaLeaderboardService.rankOf("math", eric);
+        assertEquals(2, ericMath.getRank());
+        assertEquals(50.0, ericMath.getPercentile());
+        assertNull(gpaLeaderboardService.rankOf("history", eric));
+
+        studentService.deleteGrade(chadMath, "math");
+        assertEquals(1, gpaLeaderboardService.rankOf("math", eric).getRank());
+        assertNull(gpaLeaderboardService.rankOf(GpaLeaderboardService.OVERALL, chad));
+
+        mockMvc.perform(get("/api/leaderboard").param("subject", "overall").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].studentId").value(eric))
+                .andExpect(jsonPath("$[0].average").value(80.0));
+        mockMvc.perform(get("/api/students/{id}/rank", eric).param("subject", "science"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rank").value(1));
+        mockMvc.perform(get("/api/leaderboard").param("subject", "art")).andExpect(status().isBadRequest());
+
+        studentService.deleteStudent(eric);
+        assertTrue(gpaLeaderboardService.top(GpaLeaderboardService.OVERALL, 10).isEmpty());
+        mockMvc.perform(get("/api/students/{id}/rank", eric)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void gradesFromOtherNodesArriveWithTheRefresh() {
+        gpaLeaderboardService.rebuild();
+        // a grade this node never saw committed, as another instance would insert it
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('history', 41, 88.0)");
+        assertNull(gpaLeaderboardService.rankOf("history", 41));
+
+        gpaLeaderboardService.rebuild();
+        assertEquals(88.0, gpaLeaderboardService.rankOf("history", 41).getAverage());
+        gpaLeaderboardService.gradeAdded(41, "history", 92.0);
+        assertEquals(90.0, gpaLeaderboardService.rankOf("history", 41).getAverage(), "local writes still apply after a rebuild");
+    }
+
+    @Test
+    public void aRebuildBetweenCommitAndCallbackCountsTheGradeOnce() {
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('history', 41, 80.0)");
+        gpaLeaderboardService.rebuild();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // registered first, so the rebuild scans the committed grade before the leaderboard's own callback runs
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    gpaLeaderboardService.rebuild();
+                }
+            });
+            jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('history', 41, 90.0)");
+            gpaLeaderboardService.gradeAdded(41, "history", 90.0);
+        });
+        assertEquals(new StudentAverage(41, 2, 85.0), gpaLeaderboardService.top("history", 1).get(0));
+
+        gpaLeaderboardService.rebuild();
+        assertEquals(new StudentAverage(41, 2, 85.0), gpaLeaderboardService.top("history", 1).get(0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("delete from student");
+        jdbcTemplate.execute("delete from grade");
+        jdbcTemplate.execute("delete from grade_aggregate");
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        gpaLeaderboardService.rebuild();
+    }
+}
@@ -0,0 +1,69 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradeColumn;
+import com.luv2code.springmvc.models.MathGrade;
+import com.luv2code.springmvc.models.StudentGrades;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradeColumnTest {
+
+    @Test
+    public void roundToHundredthsMatchesBigDecimal() {
+        double[] ties = {1.005, 2.675, 0.125, 80.555, 99.995, 0.0, -0.001, -1.005, 1e-7, 12345678.905};
+        for (double value : ties) {
+            assertEquals(bigDecimalRound(value), GradeColumn.roundToHundredths(value), "rounding " + value);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 1_000_000; i++) {
+            double value = random.nextDouble() * 100;
+            assertEquals(bigDecimalRound(value), GradeColumn.roundToHundredths(value), "rounding " + value);
+            double average = (random.nextInt(10001) + random.nextInt(10001) + random.nextInt(10001)) / 300.0;
+            assertEquals(bigDecimalRound(average), GradeColumn.roundToHundredths(average), "rounding " + average);
+        }
+        assertThrows(NumberFormatException.class, () -> GradeColumn.roundToHundredths(Double.NaN));
+    }
+
+    @Test
+    public void columnStatistics() {
+        GradeColumn column = new GradeColumn(2);
+        for (double grade : new double[]{90, 70, 80, 100, 60}) {
+            column.add(grade);
+        }
+        assertEquals(5, column.size());
+        assertEquals(400, column.sum());
+        assertEquals(80, column.mean());
+        assertEquals(200, column.variance());
+        assertEquals(60, column.min());
+        assertEquals(100, column.max());
+        assertEquals(80, column.percentile(50));
+        assertEquals(95, column.percentile(87.5));
+        assertArrayEquals(new int[]{0, 0, 0, 0, 1, 1, 1, 2}, column.histogram(20, 100, new int[8]));
+
+        column.add(50);
+        assertEquals(75, column.percentile(50), "percentiles follow new grades");
+    }
+
+    @Test
+    public void studentGradesAverageUsesSameRounding() {
+        StudentGrades studentGrades = new StudentGrades();
+        List<Grade> grades = new ArrayList<>(List.of(new MathGrade(100.0), new MathGrade(90.05), new MathGrade(70.0)));
+        studentGrades.setMathGradeResults(grades);
+
+        assertEquals(86.68, studentGrades.findGradePointAverage(grades));
+        assertEquals(86.68, studentGrades.findGradePointAverage(studentGrades.getMathGradeColumn()));
+        assertEquals(3, studentGrades.getMathGradeColumn().size());
+    }
+
+    private static double bigDecimalRound(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+}
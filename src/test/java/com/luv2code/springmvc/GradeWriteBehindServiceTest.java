@@ -0,0 +1,101 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.GradebookCollegeStudent;
+import com.luv2code.springmvc.service.GradeQueueFullException;
+import com.luv2code.springmvc.service.GradeWriteBehindService;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "gradebook.write-behind.enabled=true",
+        "gradebook.write-behind.read-timeout=1s",
+        "gradebook.write-behind.max-retry-backoff=200ms"
+})
+public class GradeWriteBehindServiceTest {
+
+    @Autowired
+    private GradeWriteBehindService gradeWriteBehindService;
+
+    @Autowired
+    private StudentAndGradeService studentService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.execute("insert into student(id, first_name, last_name, email_address) "
+                + "values (31, 'Eric', 'Roby', 'eric.roby@luv2code_school.com')");
+    }
+
+    @Test
+    public void submittingStudentReadsOwnWrites() {
+        // cache the empty report card first; the batched write must evict it
+        assertTrue(studentService.studentInformation(31).getStudentGrades().getMathGradeResults().isEmpty());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(gradeWriteBehindService.submit(80.0 + i / 10.0, 31, "math"));
+        }
+
+        assertTrue(gradeWriteBehindService.awaitFlushed(31));
+        GradebookCollegeStudent student = studentService.studentInformation(31);
+        assertEquals(50, student.getStudentGrades().getMathGradeResults().size());
+        assertEquals(50, studentService.getGradeAggregates(31).get("math").getGradeCount());
+    }
+
+    @Test
+    public void invalidGradesAreRejectedBeforeQueueing() {
+        assertFalse(gradeWriteBehindService.submit(101, 31, "math"));
+        assertFalse(gradeWriteBehindService.submit(-5, 31, "math"));
+        assertFalse(gradeWriteBehindService.submit(90, 31, "literature"));
+        assertFalse(gradeWriteBehindService.submit(90, 0, "math"));
+        assertEquals(0, gradeWriteBehindService.getQueueSize());
+    }
+
+    @Test
+    public void failedBatchesAreRetriedUntilTheyCommit() {
+        jdbcTemplate.execute("alter table grade rename to grade_offline");
+        try {
+            for (int i = 0; i < 20; i++) {
+                assertTrue(gradeWriteBehindService.submit(90, 31, "math"));
+            }
+            assertFalse(gradeWriteBehindService.awaitFlushed(31), "nothing is reported flushed while the writes fail");
+        } finally {
+            jdbcTemplate.execute("alter table grade_offline rename to grade");
+        }
+
+        assertTrue(gradeWriteBehindService.awaitFlushed(31));
+        assertEquals(20, jdbcTemplate.queryForObject("select count(*) from grade where student_id = 31", Integer.class));
+    }
+
+    @DirtiesContext
+    @Test
+    public void shutdownDrainsAcceptedGrades() throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(gradeWriteBehindService.submit(i % 101, 31, i % 2 == 0 ? "science" : "history"));
+        }
+        gradeWriteBehindService.shutdown();
+
+        assertEquals(1000, jdbcTemplate.queryForObject("select count(*) from grade where student_id = 31", Integer.class));
+        assertThrows(GradeQueueFullException.class, () -> gradeWriteBehindService.submit(90, 31, "math"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("delete from student");
+        jdbcTemplate.execute("delete from grade");
+        jdbcTemplate.execute("delete from grade_aggregate");
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+}
@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.Mockito.when;
@@ -102,6 +103,20 @@ public class GradebookControllerTest {
         assertNotNull(verifyStudent);
     }
 
+    @Test
+    public void createStudentWithTakenEmailShowsError() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.post("/")
+                .param("firstName", "Eric")
+                .param("lastName", "Roby")
+                .param("emailAddress", "eric.roby@luv2code_school.com"))
+                .andExpect(status().isOk()).andReturn();
+
+        ModelAndView mav = mvcResult.getModelAndView();
+        ModelAndViewAssert.assertViewName(mav, "index");
+        ModelAndViewAssert.assertModelAttributeAvailable(mav, "errorMessage");
+        assertEquals(1, template.queryForObject("select count(*) from student", Integer.class));
+    }
+
     @Test
     public void deleteStudent() throws Exception {
 
@@ -124,6 +139,29 @@ public class GradebookControllerTest {
         ModelAndViewAssert.assertViewName(mav, "error");
     }
 
+    @Test
+    public void studentInformationHttpRequest() throws Exception {
+        CollegeStudent eric = studentDao.findByEmailAddress("eric.roby@luv2code_school.com");
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/studentInformation/{id}", eric.getId()))
+                .andExpect(status().isOk()).andReturn();
+
+        ModelAndView mav = mvcResult.getModelAndView();
+        ModelAndViewAssert.assertViewName(mav, "studentInformation");
+        ModelAndViewAssert.assertModelAttributeValue(mav, "mathAverage", "N/A");
+    }
+
+    @Test
+    public void serviceMetricsAreExposed() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/")).andExpect(status().isOk());
+
+        MvcResult mvcResult = mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics/gradebook.service")
+                        .param("tag", "method:getGradeBook"))
+                .andExpect(status().isOk()).andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).contains("\"COUNT\"");
+    }
+
     @AfterEach
     public void tearDown() {
         template.execute("delete from STUDENT where EMAIL_ADDRESS = 'eric.roby@luv2code_school.com'");
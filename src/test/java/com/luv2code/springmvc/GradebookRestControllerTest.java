@@ -0,0 +1,158 @@
+package com.luv2code.springmvc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class GradebookRestControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void studentLifecycle() throws Exception {
+        MvcResult created = mockMvc.perform(post("/api/students").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Chad\",\"lastName\":\"Darby\",\"emailAddress\":\"chad.darby@luv2code_school.com\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.emailAddress").value("chad.darby@luv2code_school.com"))
+                .andReturn();
+        String location = created.getResponse().getHeader(HttpHeaders.LOCATION);
+        assertNotNull(location);
+
+        String etag = mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.studentGrades.mathGradeResults").isEmpty())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        mockMvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        String gradeLocation = mockMvc.perform(post(location + "/grades").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"gradeType\":\"math\",\"grade\":85.5}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.subject").value("math"))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        mockMvc.perform(post(location + "/grades").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"gradeType\":\"art\",\"grade\":85.5}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get(location).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.studentGrades.mathGradeResults[0].grade").value(85.5));
+
+        mockMvc.perform(delete(gradeLocation)).andExpect(status().isNoContent());
+        mockMvc.perform(get(gradeLocation)).andExpect(status().isNotFound());
+        mockMvc.perform(delete(location)).andExpect(status().isNoContent());
+        mockMvc.perform(get(location)).andExpect(status().isNotFound());
+        mockMvc.perform(delete(location)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void unchangedGradebookPageIsNotModified() throws Exception {
+        jdbcTemplate.execute("insert into student(first_name, last_name, email_address) values ('Eric', 'Roby', 'eric.roby@luv2code_school.com')");
+
+        String etag = mockMvc.perform(get("/api/students"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.students[0].emailAddress").value("eric.roby@luv2code_school.com"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/students").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(post("/api/students").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Eric\",\"lastName\":\"Roby\",\"emailAddress\":\"eric.roby@luv2code_school.com\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void exportStreamsEveryStudentWithGrades() throws Exception {
+        jdbcTemplate.execute("insert into student(id, first_name, last_name, email_address) values (21, 'Eric', 'Roby, Jr', 'eric.roby@luv2code_school.com')");
+        jdbcTemplate.execute("insert into student(id, first_name, last_name, email_address) values (22, 'Chad', 'Darby', 'chad.darby@luv2code_school.com')");
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('math', 21, 90.0)");
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('math', 21, 85.5)");
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('history', 21, 70.0)");
+
+        MvcResult csv = mockMvc.perform(get("/api/export?format=csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(content().string("id,first_name,last_name,email_address,math_grades,science_grades,history_grades,math_gpa,science_gpa,history_gpa\n"
+                        + "21,Eric,\"Roby, Jr\",eric.roby@luv2code_school.com,90.0;85.5,,70.0,87.75,,70.0\n"
+                        + "22,Chad,Darby,chad.darby@luv2code_school.com,,,,,,\n"));
+
+        MvcResult ndjson = mockMvc.perform(get("/api/export?format=ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String[] lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"id\":21,\"firstName\":\"Eric\",\"lastName\":\"Roby, Jr\",\"emailAddress\":\"eric.roby@luv2code_school.com\","
+                + "\"mathGrades\":[90.0,85.5],\"mathGpa\":87.75,\"scienceGrades\":[],\"scienceGpa\":null,"
+                + "\"historyGrades\":[70.0],\"historyGpa\":70.0}", lines[0]);
+
+        mockMvc.perform(get("/api/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void gradesAndReportCardsArePaged() throws Exception {
+        jdbcTemplate.execute("insert into student(id, first_name, last_name, email_address) values (21, 'Eric', 'Roby', 'eric.roby@luv2code_school.com')");
+        jdbcTemplate.execute("insert into student(id, first_name, last_name, email_address) values (22, 'Chad', 'Darby', 'chad.darby@luv2code_school.com')");
+        for (int i = 0; i < 5; i++) {
+            jdbcTemplate.update("insert into grade(subject, student_id, grade) values ('math', 21, ?)", 80.0 + i);
+        }
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('history', 22, 70.0)");
+
+        mockMvc.perform(get("/api/students/21/grades").param("subject", "math").param("offset", "1").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.grades.length()").value(2))
+                .andExpect(jsonPath("$.grades[0].grade").value(81.0))
+                .andExpect(jsonPath("$.grades[1].grade").value(82.0))
+                .andExpect(jsonPath("$.hasNext").value(true));
+        mockMvc.perform(get("/api/students/21/grades").param("subject", "math").param("offset", "3").param("limit", "2"))
+                .andExpect(jsonPath("$.grades.length()").value(2))
+                .andExpect(jsonPath("$.hasNext").value(false));
+        mockMvc.perform(get("/api/students/21/grades").param("subject", "math").param("offset", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students/21/grades").param("subject", "math").param("limit", "-5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students/21/grades").param("subject", "art"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/students/99/grades").param("subject", "math"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/report-cards").param("after", "21").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.students.length()").value(1))
+                .andExpect(jsonPath("$.students[0].id").value(22))
+                .andExpect(jsonPath("$.students[0].studentGrades.historyGradeResults[0].grade").value(70.0));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("delete from student");
+        jdbcTemplate.execute("delete from grade");
+        jdbcTemplate.execute("delete from grade_aggregate");
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+}
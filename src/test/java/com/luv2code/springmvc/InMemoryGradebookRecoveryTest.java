@@ -0,0 +1,162 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.GradebookCollegeStudent;
+import com.luv2code.springmvc.models.SubjectGrade;
+import com.luv2code.springmvc.service.InMemoryStudentAndGradeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a "crash" is a service that is dropped without close(); the next one reopens the same directory
+public class InMemoryGradebookRecoveryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void acknowledgedWritesSurviveCrash() throws IOException {
+        InMemoryStudentAndGradeService service = open(1000);
+        CollegeStudent eric = service.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com");
+        CollegeStudent chad = service.createStudent("Chad", "Darby", "chad.darby@luv2code_school.com");
+        SubjectGrade math = service.addGrade(80.5, eric.getId(), "math");
+        service.addGrade(90.0, eric.getId(), "science");
+        service.createGrades(List.of(new GradeSubmission(chad.getId(), "history", 70.0),
+                new GradeSubmission(chad.getId(), "math", 101.0)));
+        assertEquals(eric.getId(), service.deleteGrade(math.getId(), "math"));
+        service.deleteStudent(chad.getId());
+        assertThrows(DataIntegrityViolationException.class,
+                () -> service.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com"));
+        assertTrue(service.isEmailTaken("eric.roby@luv2code_school.com"));
+        assertFalse(service.isEmailTaken("chad.darby@luv2code_school.com"), "freed by the delete");
+
+        InMemoryStudentAndGradeService recovered = open(1000);
+        assertFalse(recovered.checkIfStudentIsNull(chad.getId()));
+        assertTrue(recovered.isEmailTaken("eric.roby@luv2code_school.com"));
+        GradebookCollegeStudent reportCard = recovered.studentInformation(eric.getId());
+        assertEquals("eric.roby@luv2code_school.com", reportCard.getEmailAddress());
+        assertTrue(reportCard.getStudentGrades().getMathGradeResults().isEmpty());
+        assertEquals(90.0, reportCard.getStudentGrades().getScienceGradeResults().get(0).getGrade());
+
+        CollegeStudent next = recovered.createStudent("Chad", "Darby", "chad.darby@luv2code_school.com");
+        assertTrue(next.getId() > chad.getId(), "ids are never reused");
+        assertTrue(recovered.addGrade(60.0, next.getId(), "math").getId() > math.getId() + 2);
+    }
+
+    @Test
+    public void tornRecordAtTheTailIsDiscarded() throws IOException {
+        InMemoryStudentAndGradeService service = open(1000);
+        CollegeStudent student = service.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com");
+        service.addGrade(80.5, student.getId(), "math");
+
+        // a record whose length made it to the file but whose payload did not
+        Path log = directory.resolve("events-1.log");
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            long end = 0;
+            for (int length = file.readInt(); length > 0; length = file.readInt()) {
+                end += 8 + length;
+                file.seek(end);
+            }
+            file.seek(end);
+            file.writeInt(40);
+            file.writeInt(12345);
+            file.write(new byte[]{3, 0, 0, 0});
+        }
+
+        InMemoryStudentAndGradeService recovered = open(1000);
+        assertEquals(1, recovered.studentInformation(student.getId()).getStudentGrades().getMathGradeResults().size());
+        recovered.addGrade(70.0, student.getId(), "history");
+
+        InMemoryStudentAndGradeService recoveredAgain = open(1000);
+        GradebookCollegeStudent reportCard = recoveredAgain.studentInformation(student.getId());
+        assertEquals(1, reportCard.getStudentGrades().getMathGradeResults().size());
+        assertEquals(70.0, reportCard.getStudentGrades().getHistoryGradeResults().get(0).getGrade());
+    }
+
+    @Test
+    public void recoversFromSnapshotPlusLogTail() throws IOException {
+        InMemoryStudentAndGradeService service = open(5);
+        CollegeStudent student = service.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com");
+        for (int i = 0; i < 11; i++) {
+            service.addGrade(50.0 + i, student.getId(), "math");
+        }
+        service.deleteStudent(service.createStudent("Chad", "Darby", null).getId());
+        service.awaitSnapshot();
+        // a snapshot that was never renamed into place must not be read
+        Files.write(directory.resolve("snapshot-9.tmp"), new byte[]{1, 2, 3});
+
+        assertTrue(Files.exists(directory.resolve("snapshot-3.bin")));
+        assertTrue(Files.exists(directory.resolve("snapshot-2.bin")), "the previous snapshot is the fallback");
+        assertFalse(Files.exists(directory.resolve("events-1.log")), "logs covered by both snapshots are deleted");
+
+        InMemoryStudentAndGradeService recovered = open(5);
+        assertEquals(1, ((List<CollegeStudent>) recovered.getGradeBook()).size());
+        List<?> grades = recovered.studentInformation(student.getId()).getStudentGrades().getMathGradeResults();
+        assertEquals(11, grades.size());
+        assertEquals(Math.round(recovered.getGradeAggregates(student.getId()).get("math").getGradeSum()), 605);
+    }
+
+    @Test
+    public void damagedSnapshotFallsBackToThePreviousOne() throws IOException {
+        InMemoryStudentAndGradeService service = open(5);
+        CollegeStudent student = service.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com");
+        for (int i = 0; i < 11; i++) {
+            service.addGrade(50.0 + i, student.getId(), "math");
+        }
+        service.awaitSnapshot();
+        corrupt(directory.resolve("snapshot-3.bin"));
+
+        InMemoryStudentAndGradeService recovered = open(5);
+        assertEquals(11, recovered.studentInformation(student.getId()).getStudentGrades().getMathGradeResults().size());
+        for (int i = 0; i < 5; i++) {
+            recovered.addGrade(70.0, student.getId(), "history");
+        }
+        recovered.awaitSnapshot();
+
+        InMemoryStudentAndGradeService recoveredAgain = open(5);
+        GradebookCollegeStudent reportCard = recoveredAgain.studentInformation(student.getId());
+        assertEquals(11, reportCard.getStudentGrades().getMathGradeResults().size());
+        assertEquals(5, reportCard.getStudentGrades().getHistoryGradeResults().size());
+    }
+
+    @Test
+    public void refusesToStartWithoutAnIntactSnapshot() throws IOException {
+        InMemoryStudentAndGradeService service = open(5);
+        CollegeStudent student = service.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com");
+        for (int i = 0; i < 11; i++) {
+            service.addGrade(50.0 + i, student.getId(), "math");
+        }
+        service.awaitSnapshot();
+        corrupt(directory.resolve("snapshot-2.bin"));
+        corrupt(directory.resolve("snapshot-3.bin"));
+
+        assertThrows(IOException.class, () -> open(5), "events-1.log is gone, so an empty start would lose data");
+    }
+
+    private static void corrupt(Path file) throws IOException {
+        try (RandomAccessFile snapshot = new RandomAccessFile(file.toFile(), "rw")) {
+            snapshot.seek(snapshot.length() / 2);
+            int b = snapshot.read();
+            snapshot.seek(snapshot.length() / 2);
+            snapshot.write(b ^ 0xFF);
+        }
+    }
+
+    private InMemoryStudentAndGradeService open(int snapshotEvery) throws IOException {
+        InMemoryStudentAndGradeService service = new InMemoryStudentAndGradeService();
+        ReflectionTestUtils.setField(service, "cacheManager", new NoOpCacheManager());
+        service.open(directory, 4096, snapshotEvery, false);
+        return service;
+    }
+}
@@ -0,0 +1,94 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.service.CohortAnalyticsService;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// two H2 databases stand in for the primary and the replica; nothing replicates between them
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "gradebook.datasource.replica.url=jdbc:h2:mem:replica",
+        "gradebook.datasource.replica.username=sa",
+        "gradebook.datasource.replica.password=password"
+})
+public class ReplicaRoutingTest {
+
+    @Autowired
+    private StudentAndGradeService studentService;
+
+    @Autowired
+    private CohortAnalyticsService cohortAnalyticsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        Flyway.configure().dataSource(replicaDataSource).load().migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        replica.execute("insert into student(id, first_name, last_name, email_address) "
+                + "values (1000, 'Replica', 'Only', 'replica.only@luv2code_school.com')");
+    }
+
+    @Test
+    public void readOnlyMethodsUseReplica() {
+        List<CollegeStudent> students = new ArrayList<>();
+        studentService.getGradeBook().forEach(students::add);
+
+        assertEquals(1, students.size());
+        assertEquals("replica.only@luv2code_school.com", students.get(0).getEmailAddress());
+        replica.update("insert into grade(subject, student_id, grade) values ('math', 1000, 90.0)");
+        assertEquals(1, cohortAnalyticsService.getCohortStatistics(10).getOverall().getCount());
+    }
+
+    @Test
+    public void cachedReadsUsePrimary() {
+        assertNull(studentService.studentInformation(1000), "report cards are cached from the primary");
+        assertTrue(studentService.getGradeBook(0, 10).getStudents().isEmpty());
+    }
+
+    @Test
+    public void writesUsePrimary() {
+        studentService.createStudent("Chad", "Darby", "chad.darby@luv2code_school.com");
+
+        assertEquals(1, primary.queryForObject("select count(*) from student", Integer.class));
+        assertEquals(0, replica.queryForObject("select count(*) from student where email_address = 'chad.darby@luv2code_school.com'", Integer.class));
+        assertFalse(studentService.checkIfStudentIsNull(1000), "existence checks for writes read the primary");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        primary.execute("delete from student");
+        replica.execute("delete from student");
+        replica.execute("delete from grade");
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+}
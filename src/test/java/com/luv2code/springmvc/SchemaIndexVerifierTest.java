@@ -0,0 +1,38 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.config.SchemaIndexVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class SchemaIndexVerifierTest {
+
+    @Autowired
+    private SchemaIndexVerifier schemaIndexVerifier;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void migratedSchemaHasExpectedIndexes() {
+        assertTrue(schemaIndexVerifier.findMissingIndexes().isEmpty());
+        assertDoesNotThrow(() -> schemaIndexVerifier.verify());
+    }
+
+    @Test
+    public void missingIndexFailsVerification() {
+        jdbcTemplate.execute("drop index uk_student_email_address");
+        try {
+            assertEquals(List.of("unique student[email_address]"), schemaIndexVerifier.findMissingIndexes());
+            assertThrows(IllegalStateException.class, () -> schemaIndexVerifier.verify());
+        } finally {
+            jdbcTemplate.execute("create unique index uk_student_email_address on student (email_address)");
+        }
+    }
+}
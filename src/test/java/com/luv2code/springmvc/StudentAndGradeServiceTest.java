@@ -1,7 +1,16 @@
 package com.luv2code.springmvc;
 
+import com.luv2code.springmvc.config.CacheConfiguration;
 import com.luv2code.springmvc.models.CollegeStudent;
+import com.luv2code.springmvc.models.Grade;
+import com.luv2code.springmvc.models.GradeAggregate;
+import com.luv2code.springmvc.models.GradeIngestResult;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.models.Gradebook;
+import com.luv2code.springmvc.models.GradebookCollegeStudent;
+import com.luv2code.springmvc.models.GradebookPage;
 import com.luv2code.springmvc.models.HistoryGrade;
+import com.luv2code.springmvc.models.LazyStudentGrades;
 import com.luv2code.springmvc.models.MathGrade;
 import com.luv2code.springmvc.models.ScienceGrade;
 import com.luv2code.springmvc.repository.HistoryGradesDao;
@@ -9,18 +18,28 @@ import com.luv2code.springmvc.repository.MathGradesDao;
 import com.luv2code.springmvc.repository.ScienceGradesDao;
 import com.luv2code.springmvc.repository.StudentDao;
 import com.luv2code.springmvc.service.StudentAndGradeService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.jdbc.Sql;
 
+import jakarta.persistence.EntityManagerFactory;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,12 +65,20 @@ public class StudentAndGradeServiceTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     public void setUp() {
         jdbcTemplate.execute("insert into STUDENT(ID, FIRST_NAME, LAST_NAME, EMAIL_ADDRESS) values (1, 'Eric', 'Roby', 'eric.roby@luv2code_school.com')");
-        jdbcTemplate.execute("insert into math_grade(student_id, grade) values (1, 90.05)");
-        jdbcTemplate.execute("insert into science_grade(student_id, grade) values (1, 70.05)");
-        jdbcTemplate.execute("insert into history_grade(student_id, grade) values (1, 80.55)");
+        // explicit ids do not move H2 2.x identities, so keep generated ids clear of the fixtures (1 and 11-14)
+        jdbcTemplate.execute("alter table student alter column id restart with 100");
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('math', 1, 90.05)");
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('science', 1, 70.05)");
+        jdbcTemplate.execute("insert into grade(subject, student_id, grade) values ('history', 1, 80.55)");
     }
 
     @Test
@@ -93,6 +120,34 @@ public class StudentAndGradeServiceTest {
         assertFalse(deleteHistoryGrade.isPresent(), "history grade is not present");
     }
 
+    @Sql("/insertData.sql")
+    @Test
+    public void deleteStudentsServiceStatementCount() {
+        List<GradeSubmission> grades = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            grades.add(new GradeSubmission(12, "math", 80));
+            grades.add(new GradeSubmission(12, "history", 70));
+        }
+        studentService.createGrades(grades);
+        assertTrue(studentService.createGrade(90, 11, "science"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        studentService.deleteStudent(11);
+        long fewGradesStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        studentService.deleteStudent(12);
+        long manyGradesStatements = statistics.getPrepareStatementCount();
+
+        assertEquals(fewGradesStatements, manyGradesStatements, "statement count does not grow with the grades");
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from grade where subject = 'math' and student_id = 12", Integer.class));
+
+        assertEquals(2, studentService.deleteStudents(List.of(13, 14, 0)), "batch delete");
+        assertFalse(studentService.checkIfStudentIsNull(13));
+        assertFalse(studentService.checkIfStudentIsNull(14));
+    }
+
     @Sql("/insertData.sql")
     @Test
     public void getGradeBookService() {
@@ -105,6 +160,79 @@ public class StudentAndGradeServiceTest {
         assertEquals(5, studentList.size(), "student list size");
     }
 
+    @Sql("/insertData.sql")
+    @Test
+    public void getGradeBookPageService() {
+        GradebookPage firstPage = studentService.getGradeBook(0, 3);
+        assertEquals(3, firstPage.getStudents().size(), "first page size");
+        assertTrue(firstPage.isHasNext(), "first page has a next page");
+        assertEquals(firstPage.getStudents().get(2).getId(), firstPage.getNextCursor(), "cursor is last id on page");
+
+        GradebookPage secondPage = studentService.getGradeBook(firstPage.getNextCursor(), 3);
+        assertEquals(2, secondPage.getStudents().size(), "second page size");
+        assertFalse(secondPage.isHasNext(), "second page is the last page");
+        assertTrue(secondPage.getStudents().get(0).getId() > firstPage.getNextCursor(), "pages do not overlap");
+    }
+
+    @Sql("/insertData.sql")
+    @Test
+    public void listingReadsProjectionsNotEntities() {
+        cacheManager.getCache(CacheConfiguration.GRADEBOOK).clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        GradebookPage page = studentService.getGradeBook(0, 10);
+        assertTrue(studentService.checkIfStudentIsNull(1));
+        assertEquals("eric.roby@luv2code_school.com", studentService.studentInformation(1).getEmailAddress());
+
+        assertEquals(5, page.getStudents().size());
+        assertFalse(page.getStudents().get(0) instanceof CollegeStudent, "listing rows are projections");
+        assertEquals("Eric", page.getStudents().get(0).getFirstName());
+        assertEquals(0, statistics.getEntityStatistics(CollegeStudent.class.getName()).getLoadCount(), "no student entity was loaded");
+    }
+
+    @Sql("/insertData.sql")
+    @Test
+    public void getReportCardsService() {
+        assertTrue(studentService.createGrade(60.00, 11, "math"));
+
+        Gradebook gradebook = studentService.getReportCards(0, 10);
+
+        assertEquals(5, gradebook.getStudents().size(), "report cards on page");
+        GradebookCollegeStudent eric = gradebook.getStudents().get(0);
+        assertEquals(1, eric.getId());
+        assertEquals(1, eric.getStudentGrades().getMathGradeResults().size(), "eric math grades");
+        assertEquals(1, eric.getStudentGrades().getScienceGradeResults().size(), "eric science grades");
+        assertEquals(1, eric.getStudentGrades().getHistoryGradeResults().size(), "eric history grades");
+
+        GradebookCollegeStudent studentOne = studentService.studentInformation(11);
+        assertEquals("Student One", studentOne.getFullName());
+        assertEquals(60.00, studentOne.getStudentGrades().getMathGradeResults().get(0).getGrade());
+        assertTrue(studentOne.getStudentGrades().getHistoryGradeResults().isEmpty(), "student one has no history grades");
+        assertNull(studentService.studentInformation(0), "unknown student");
+    }
+
+    @Test
+    public void reportCardsLoadGradesOnDemand() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(studentService.createGrade(50.0 + i, 1, "math"));
+        }
+
+        Gradebook gradebook = studentService.getReportCards(0, 10);
+        LazyStudentGrades grades = (LazyStudentGrades) gradebook.getStudents().get(0).getStudentGrades();
+        assertFalse(grades.isLoaded("math"), "listing does not read grades");
+
+        List<Grade> page = grades.getGradeResults("math", 1, 2);
+        assertEquals(List.of(50.0, 51.0), List.of(page.get(0).getGrade(), page.get(1).getGrade()));
+        assertFalse(grades.isLoaded("math"), "a page does not load the subject");
+
+        assertEquals(5, grades.getMathGradeResults().size());
+        assertTrue(grades.isLoaded("math"));
+        assertFalse(grades.isLoaded("science"));
+        assertEquals(52.0, grades.getGradeResults("math", 3, 10).get(0).getGrade());
+        assertEquals(70.05, grades.getScienceGradeColumn().get(0));
+    }
+
     @Test
     public void createGradeService(){
         // create a grade for a student, takes in grade, student id, and course
@@ -123,6 +251,125 @@ public class StudentAndGradeServiceTest {
         assertTrue(historyGrades.iterator().hasNext(), "Student has a history grade");
     }
 
+    @Test
+    public void createGradesService() {
+        List<GradeSubmission> submissions = List.of(
+                new GradeSubmission(1, "math", 75.00),
+                new GradeSubmission(1, "science", 85.00),
+                new GradeSubmission(1, "history", 95.00),
+                new GradeSubmission(1, "math", 180.50), // out of range
+                new GradeSubmission(1, "literature", 80.00), // invalid course
+                new GradeSubmission(5, "math", 80.00)); // invalid student id
+
+        GradeIngestResult result = studentService.createGrades(submissions);
+
+        assertEquals(6, result.getSubmitted(), "submitted grades");
+        assertEquals(3, result.getCreated(), "created grades");
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from grade where subject = 'math' and student_id = 1", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from grade where subject = 'science' and student_id = 1", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from grade where subject = 'history' and student_id = 1", Integer.class));
+    }
+
+    @Test
+    public void gradeAggregatesService() {
+        // the grades inserted in setUp bypass the service, so the aggregates start out stale
+        assertEquals(3, studentService.checkGradeAggregates(true), "stale aggregates");
+        assertEquals(0, studentService.checkGradeAggregates(false), "rebuilt aggregates");
+
+        assertTrue(studentService.createGrade(70.00, 1, "math"));
+        assertTrue(studentService.createGrade(100.00, 1, "math"));
+        GradeAggregate math = studentService.getGradeAggregates(1).get("math");
+        assertEquals(3, math.getGradeCount());
+        assertEquals(260.05, math.getGradeSum(), 1e-9);
+        assertEquals(70.00, math.getMinGrade());
+        assertEquals(100.00, math.getMaxGrade());
+        assertEquals(86.68, math.getAverage());
+
+        Integer maxGradeId = jdbcTemplate.queryForObject("select id from grade where subject = 'math' and grade = 100", Integer.class);
+        assertEquals(1, studentService.deleteGrade(maxGradeId, "math"));
+        math = studentService.getGradeAggregates(1).get("math");
+        assertEquals(2, math.getGradeCount());
+        assertEquals(90.05, math.getMaxGrade());
+        assertEquals(0, studentService.checkGradeAggregates(false), "aggregates follow grade writes");
+
+        // a bulk write mixing existing aggregate rows with a student's first grades
+        int chad = studentService.createStudent("Chad", "Darby", "chad.darby@luv2code_school.com").getId();
+        studentService.createGrades(List.of(new GradeSubmission(1, "math", 60.00),
+                new GradeSubmission(chad, "math", 50.00), new GradeSubmission(chad, "math", 40.00),
+                new GradeSubmission(chad, "science", 30.00)));
+        assertEquals(3, studentService.getGradeAggregates(1).get("math").getGradeCount());
+        assertEquals(45.00, studentService.getGradeAggregates(chad).get("math").getAverage());
+        assertEquals(0, studentService.checkGradeAggregates(false), "first and later grades of a bulk write");
+
+        studentService.deleteStudent(1);
+        Map<String, GradeAggregate> aggregates = studentService.getGradeAggregates(1);
+        assertTrue(aggregates.isEmpty(), "aggregates removed with the student");
+    }
+
+    @Test
+    public void cachedReportCardIsEvictedOnGradeWrites() {
+        GradebookCollegeStudent before = studentService.studentInformation(1);
+        assertSame(before, studentService.studentInformation(1), "second read is served from the cache");
+
+        assertTrue(studentService.createGrade(65.00, 1, "math"));
+        GradebookCollegeStudent afterCreate = studentService.studentInformation(1);
+        assertEquals(2, afterCreate.getStudentGrades().getMathGradeResults().size(), "new grade is visible");
+
+        int gradeId = afterCreate.getStudentGrades().getMathGradeResults().get(1).getId();
+        assertEquals(1, studentService.deleteGrade(gradeId, "math"));
+        assertEquals(1, studentService.studentInformation(1).getStudentGrades().getMathGradeResults().size(),
+                "deleted grade is gone");
+
+        studentService.deleteStudent(1);
+        assertFalse(studentService.checkIfStudentIsNull(1), "deleted student is evicted");
+        assertNull(studentService.studentInformation(1));
+    }
+
+    @Test
+    public void createGradeServiceUnderConcurrentWriters() throws Exception {
+        int threads = 16;
+        int gradesPerThread = 50;
+        String[] gradeTypes = {"math", "science", "history"};
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Callable<Integer> writer = () -> {
+                    start.await();
+                    int created = 0;
+                    for (int i = 0; i < gradesPerThread; i++) {
+                        if (studentService.createGrade(thread + i / 100.0, 1, gradeTypes[(thread + i) % 3])) {
+                            created++;
+                        }
+                    }
+                    return created;
+                };
+                results.add(executor.submit(writer));
+            }
+            start.countDown();
+            int created = 0;
+            for (Future<Integer> result : results) {
+                created += result.get();
+            }
+            assertEquals(threads * gradesPerThread, created, "every createGrade succeeded");
+        } finally {
+            executor.shutdown();
+        }
+
+        int mathRows = jdbcTemplate.queryForObject("select count(*) from grade where subject = 'math' and student_id = 1", Integer.class);
+        int scienceRows = jdbcTemplate.queryForObject("select count(*) from grade where subject = 'science' and student_id = 1", Integer.class);
+        int historyRows = jdbcTemplate.queryForObject("select count(*) from grade where subject = 'history' and student_id = 1", Integer.class);
+        assertEquals(3 + threads * gradesPerThread, mathRows + scienceRows + historyRows, "no lost or duplicated rows");
+
+        // setUp's rows were inserted directly, so each aggregate is short by exactly one grade
+        Map<String, GradeAggregate> aggregates = studentService.getGradeAggregates(1);
+        assertEquals(mathRows - 1, aggregates.get("math").getGradeCount());
+        assertEquals(scienceRows - 1, aggregates.get("science").getGradeCount());
+        assertEquals(historyRows - 1, aggregates.get("history").getGradeCount());
+    }
+
     @Test
     public void createGradeServiceReturnsFalse() {
         assertFalse(studentService.createGrade(180.50, 2, "math"));
@@ -148,8 +395,9 @@ public class StudentAndGradeServiceTest {
     @AfterEach
     public void tearDown() {
         jdbcTemplate.execute("delete from student");
-        jdbcTemplate.execute("delete from math_grade");
-        jdbcTemplate.execute("delete from science_grade");
-        jdbcTemplate.execute("delete from history_grade");
+        jdbcTemplate.execute("delete from grade");
+        jdbcTemplate.execute("delete from grade_aggregate");
+        // the rows above are removed behind the service's back
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
     }
 }
@@ -0,0 +1,130 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.BloomFilter;
+import com.luv2code.springmvc.models.GradeSubmission;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import com.luv2code.springmvc.service.StudentExistenceFilter;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class StudentExistenceFilterTest {
+
+    @Autowired
+    private StudentExistenceFilter studentExistenceFilter;
+
+    @Autowired
+    private StudentAndGradeService studentService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void bloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("student" + i + "@luv2code_school.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("student" + i + "@luv2code_school.com"));
+            if (filter.mightContain("other" + i + "@luv2code_school.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "about 1% false positives, was " + falsePositives);
+    }
+
+    @Test
+    public void knownStudentsAreCheckedWithoutAQuery() {
+        int eric = studentService.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com").getId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertTrue(studentService.checkIfStudentIsNull(eric));
+        assertEquals(0, statistics.getQueryExecutionCount(), "existence came from the filter");
+
+        assertFalse(studentService.checkIfStudentIsNull(eric + 1000));
+        assertEquals(1, statistics.getQueryExecutionCount(), "an unknown id asks the database");
+    }
+
+    @Test
+    public void writesFromOtherNodesAreFoundInTheDatabase() {
+        // a row this node never created, as another instance would insert it
+        jdbcTemplate.update("insert into student(first_name, last_name, email_address) values (?, ?, ?)",
+                "Chad", "Darby", "chad.darby@luv2code_school.com");
+        int chad = jdbcTemplate.queryForObject("select id from student where email_address = ?", Integer.class,
+                "chad.darby@luv2code_school.com");
+        assertFalse(studentExistenceFilter.isKnownStudent(chad));
+        assertTrue(studentService.checkIfStudentIsNull(chad));
+        assertTrue(studentExistenceFilter.isKnownStudent(chad), "learned from the database");
+        assertFalse(studentService.isEmailTaken("chad.darby@luv2code_school.com"), "emails from other nodes arrive with the refresh");
+        studentExistenceFilter.rebuild();
+        assertTrue(studentService.isEmailTaken("chad.darby@luv2code_school.com"));
+
+        // deleted elsewhere: the filter still trusts the id, and the refresh removes the grades written meanwhile
+        jdbcTemplate.update("delete from student where id = ?", chad);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertEquals(1, studentService.createGrades(List.of(new GradeSubmission(chad, "math", 80.0))).getCreated());
+        assertTrue(studentService.createGrade(90, chad, "science"));
+        assertEquals(0, statistics.getQueryExecutionCount(), "a known student is not looked up");
+        assertEquals(1, studentExistenceFilter.deleteOrphanedGrades());
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from grade where student_id = ?", Integer.class, chad));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from grade_aggregate where student_id = ?", Integer.class, chad));
+        studentExistenceFilter.rebuild();
+        assertFalse(studentService.checkIfStudentIsNull(chad));
+        assertFalse(studentService.createGrade(90, chad, "science"));
+    }
+
+    @Test
+    public void deletesAndDuplicateEmailsAreAnsweredFromTheFilter() throws Exception {
+        int eric = studentService.createStudent("Eric", "Roby", "eric.roby@luv2code_school.com").getId();
+        assertTrue(studentExistenceFilter.mightHaveEmail("eric.roby@luv2code_school.com"));
+        assertTrue(studentService.isEmailTaken("eric.roby@luv2code_school.com"));
+        assertFalse(studentService.isEmailTaken("chad.darby@luv2code_school.com"));
+
+        mockMvc.perform(post("/api/students").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Eric\",\"lastName\":\"Roby\",\"emailAddress\":\"eric.roby@luv2code_school.com\"}"))
+                .andExpect(status().isConflict());
+
+        studentService.deleteStudent(eric);
+        assertFalse(studentExistenceFilter.isKnownStudent(eric));
+        assertFalse(studentService.isEmailTaken("eric.roby@luv2code_school.com"), "a stale Bloom match is confirmed in the database");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("delete from student");
+        jdbcTemplate.execute("delete from grade");
+        jdbcTemplate.execute("delete from grade_aggregate");
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        studentExistenceFilter.rebuild();
+    }
+}
@@ -0,0 +1,113 @@
+package com.luv2code.springmvc;
+
+import com.luv2code.springmvc.models.StudentSearchPage;
+import com.luv2code.springmvc.models.StudentSummary;
+import com.luv2code.springmvc.service.StudentAndGradeService;
+import com.luv2code.springmvc.service.StudentSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@AutoConfigureMockMvc
+@SpringBootTest
+public class StudentSearchServiceTest {
+
+    @Autowired
+    private StudentSearchService studentSearchService;
+
+    @Autowired
+    private StudentAndGradeService studentService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setup() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 200; i++) {
+            rows.add(new Object[]{"Student" + i, "Number" + i, "student" + i + "@luv2code_school.com"});
+        }
+        rows.add(new Object[]{"Eric", "Roby", "eric.roby@luv2code_school.com"});
+        rows.add(new Object[]{"Erica", "Robinson", "erica.robinson@luv2code_school.com"});
+        rows.add(new Object[]{"Chad", "Darby", "chad.darby@luv2code_school.com"});
+        jdbcTemplate.batchUpdate("insert into student(first_name, last_name, email_address) values (?, ?, ?)", rows);
+        studentSearchService.rebuild();
+    }
+
+    @Test
+    public void exactMatchesRankAbovePrefixAndTypos() {
+        assertEquals(List.of("Roby", "Robinson"), lastNames(studentSearchService.search("eric", 0, 10)));
+        assertEquals(List.of("Robinson"), lastNames(studentSearchService.search("ROBI", 0, 10)));
+        assertEquals(List.of("Darby"), lastNames(studentSearchService.search("darbby", 0, 10)));
+        assertEquals(List.of("Roby"), lastNames(studentSearchService.search("eric roby", 0, 10)));
+        assertEquals(List.of("Darby"), lastNames(studentSearchService.search("chad.darby@luv2code_school.com", 0, 10)));
+        assertTrue(studentSearchService.search("zzz", 0, 10).getStudents().isEmpty());
+        assertTrue(studentSearchService.search(" .@ ", 0, 10).getStudents().isEmpty());
+    }
+
+    @Test
+    public void searchResultsArePaged() {
+        StudentSearchPage first = studentSearchService.search("student1", 0, 5);
+        // student1 exactly, then the student1x and student1xx prefixes, then one-letter typos such as student2
+        assertEquals(200, first.getTotal());
+        assertEquals(List.of("Number1", "Number10", "Number100", "Number101", "Number102"), lastNames(first));
+        assertTrue(first.isHasNext());
+        assertEquals("Number199", studentSearchService.search("student1", 110, 1).getStudents().get(0).getLastName());
+
+        StudentSearchPage last = studentSearchService.search("student1", 198, 5);
+        assertEquals(2, last.getStudents().size());
+        assertFalse(last.isHasNext());
+    }
+
+    @Test
+    public void indexFollowsCreateAndDelete() throws Exception {
+        int ada = studentService.createStudent("Ada", "Lovelace", "ada.lovelace@luv2code_school.com").getId();
+        StudentSearchPage found = studentSearchService.search("lovel", 0, 10);
+        assertEquals(1, found.getTotal());
+        assertEquals(ada, found.getStudents().get(0).getId());
+
+        mockMvc.perform(get("/api/students/search").param("q", "lovelace").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.students[0].id").value(ada))
+                .andExpect(jsonPath("$.students[0].emailAddress").value("ada.lovelace@luv2code_school.com"));
+        mockMvc.perform(get("/search").param("q", "ada"))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("search"));
+
+        studentService.deleteStudent(ada);
+        assertEquals(0, studentSearchService.search("lovelace", 0, 10).getTotal());
+    }
+
+    private static List<String> lastNames(StudentSearchPage page) {
+        return page.getStudents().stream().map(StudentSummary::getLastName).toList();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("delete from student");
+        jdbcTemplate.execute("delete from grade");
+        jdbcTemplate.execute("delete from grade_aggregate");
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        studentSearchService.rebuild();
+    }
+}
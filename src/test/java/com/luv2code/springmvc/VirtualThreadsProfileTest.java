@@ -0,0 +1,26 @@
+package com.luv2code.springmvc;
+
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@ActiveProfiles("virtual-threads")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class VirtualThreadsProfileTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Test
+    public void requestsRunOnVirtualThreads() {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        assertInstanceOf(VirtualThreadExecutor.class,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+    }
+}